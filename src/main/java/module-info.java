@@ -6,6 +6,7 @@ module uk.ac.soton.comp1206 {
     requires org.apache.logging.log4j;
     requires nv.websocket.client;
   requires javafx.base;
+    requires static jdk.incubator.vector;
   opens uk.ac.soton.comp1206.ui to javafx.fxml;
     exports uk.ac.soton.comp1206;
     exports uk.ac.soton.comp1206.ui;
@@ -14,4 +15,7 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.engine;
+    exports uk.ac.soton.comp1206.engine.search;
+    exports uk.ac.soton.comp1206.engine.sim;
 }
\ No newline at end of file
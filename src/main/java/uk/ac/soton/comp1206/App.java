@@ -6,6 +6,8 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.engine.search.MoveSearch;
+import uk.ac.soton.comp1206.game.Autosave;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -45,6 +47,9 @@ public class App extends Application {
         instance = this;
         this.stage = stage;
 
+        //Compile the move search while the menu is showing, so the first hint is as quick as the rest
+        MoveSearch.startWarmUp(1_500_000_000L);
+
         //Open game window
         openGame();
     }
@@ -67,6 +72,7 @@ public class App extends Application {
      */
     public void shutdown() {
         logger.info("Shutting down");
+        Autosave.saveOnExit();
         System.exit(0);
     }
 
@@ -0,0 +1,160 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block Sprites is an atlas of every way a block can be drawn at one cell size: empty or in each of the colours, each
+ * plain, hovered or with a circle. The gradients and borders are rasterised once when the atlas is made, so painting a
+ * block is a single image copy.
+ *
+ * The atlas has one column per colour and one row per variant. Atlases are cached by cell size and, like every other
+ * part of the scene graph, must only be used on the JavaFX thread.
+ */
+public class BlockSprites {
+
+    /**
+     * The block drawn as it is
+     */
+    public static final int PLAIN = 0;
+
+    /**
+     * The block drawn with the white hover shading
+     */
+    public static final int HOVER = 1;
+
+    /**
+     * The block drawn with a circle in the centre
+     */
+    public static final int CIRCLE = 2;
+
+    /**
+     * The number of variants of each block
+     */
+    private static final int VARIANTS = 3;
+
+    /**
+     * The atlas for each cell size used so far
+     */
+    private static final Map<Integer, BlockSprites> atlases = new HashMap<>();
+
+    /**
+     * The rendered sprites
+     */
+    private final WritableImage atlas;
+
+    /**
+     * The width of each sprite in pixels
+     */
+    private final int width;
+
+    /**
+     * The height of each sprite in pixels
+     */
+    private final int height;
+
+    /**
+     * Get the atlas for blocks of the given size, rendering it the first time that size is used
+     * @param width width of a block
+     * @param height height of a block
+     * @return the atlas
+     */
+    public static BlockSprites forSize(double width, double height) {
+        int w = Math.max(1, (int) Math.ceil(width));
+        int h = Math.max(1, (int) Math.ceil(height));
+        return atlases.computeIfAbsent(w * 65536 + h, key -> new BlockSprites(w, h));
+    }
+
+    /**
+     * Render a new atlas
+     * @param width width of each sprite in pixels
+     * @param height height of each sprite in pixels
+     */
+    private BlockSprites(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        var canvas = new Canvas(width * GameBlock.COLOURS.length, height * VARIANTS);
+        var gc = canvas.getGraphicsContext2D();
+        for(int colour = 0; colour < GameBlock.COLOURS.length; colour++) {
+            for(int variant = 0; variant < VARIANTS; variant++) {
+                //Clip to the sprite, so the half of each border outside the block does not spill into its neighbours
+                gc.save();
+                gc.translate(colour * width, variant * height);
+                gc.beginPath();
+                gc.rect(0, 0, width, height);
+                gc.clip();
+                render(gc, colour, variant);
+                gc.restore();
+            }
+        }
+
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        atlas = canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Draw one sprite at the origin
+     * @param gc where to draw
+     * @param colour index into the block colours, 0 for empty
+     * @param variant which variant to draw
+     */
+    private void render(GraphicsContext gc, int colour, int variant) {
+        if(colour == 0) {
+            gc.setFill(Color.BLACK);
+            gc.setGlobalAlpha(0.6);
+            gc.fillRect(0, 0, width, height);
+
+            gc.setStroke(Color.WHITE);
+            gc.setLineWidth(1);
+            gc.strokeRect(0, 0, width, height);
+        } else {
+            gc.setFill(new RadialGradient(0, 0, 0.5, 0.5, 0.6, true, CycleMethod.NO_CYCLE,
+                    new Stop(0.0, Color.WHITE), new Stop(1, GameBlock.COLOURS[colour])));
+            gc.setGlobalAlpha(1);
+            gc.fillRect(0, 0, width, height);
+
+            gc.setStroke(Color.WHITE);
+            gc.setLineWidth(2);
+            gc.strokeRect(0, 0, width, height);
+        }
+
+        if(variant == HOVER) {
+            gc.setFill(Color.WHITE);
+            gc.setGlobalAlpha(0.2);
+            gc.fillRect(0, 0, width, height);
+        } else if(variant == CIRCLE) {
+            gc.setFill(Color.BLACK);
+            gc.setGlobalAlpha(0.3);
+            gc.fillOval(width * 0.175, height * 0.175, width * 0.65, height * 0.65);
+        }
+        gc.setGlobalAlpha(1);
+    }
+
+    /**
+     * Draw a block
+     * @param gc where to draw
+     * @param value the block value, 0 for empty
+     * @param variant which variant to draw
+     * @param x left edge
+     * @param y top edge
+     * @param width width to draw at
+     * @param height height to draw at
+     */
+    public void draw(GraphicsContext gc, int value, int variant, double x, double y, double width, double height) {
+        gc.setGlobalAlpha(1);
+        gc.drawImage(atlas, GameBlock.colourIndex(value) * this.width, variant * this.height, this.width, this.height,
+                x, y, width, height);
+    }
+
+}
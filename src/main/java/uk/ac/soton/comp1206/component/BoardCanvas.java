@@ -0,0 +1,269 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import uk.ac.soton.comp1206.event.CellSelectedListener;
+import uk.ac.soton.comp1206.event.RightClickedListener;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * A Board Canvas draws a whole grid on a single canvas, so boards of thousands of cells need only one node in the
+ * scene graph. It is the lightweight alternative to a GameBoard, which needs a node, binding and handlers per cell.
+ *
+ * When a cell of the grid changes it is only marked dirty, and the RenderQueue repaints the dirty cells together at the
+ * next pulse, so a burst of changes, such as a piece being played and lines cleared, is drawn once.
+ *
+ * Mouse clicks and movement are turned into the cell under the mouse and passed to the attached listeners.
+ */
+public class BoardCanvas extends Canvas {
+
+    /**
+     * The grid this canvas draws
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns in the grid
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the grid
+     */
+    private final int rows;
+
+    /**
+     * Width of each cell
+     */
+    private final double cellWidth;
+
+    /**
+     * Height of each cell
+     */
+    private final double cellHeight;
+
+    /**
+     * The name of the board, passed to the right click listener
+     */
+    private final String name;
+
+    /**
+     * The sprites cells are drawn from, so they match the blocks of a GameBoard
+     */
+    private final BlockSprites sprites;
+
+    /**
+     * The cells waiting to be repainted
+     */
+    private final DirtyCells dirty;
+
+    /**
+     * The cell the mouse is over, or -1 if it is not over the board
+     */
+    private int hoverX = -1;
+    private int hoverY = -1;
+
+    /**
+     * The listener to call when a cell is clicked
+     */
+    private CellSelectedListener cellClickedListener;
+
+    /**
+     * The listener to call when the mouse moves onto a different cell, or off the board
+     */
+    private CellSelectedListener cellHoveredListener;
+
+    /**
+     * The listener to call when the right mouse button is pressed
+     */
+    private RightClickedListener rightClickedListener;
+
+    /**
+     * Create a new canvas drawing the given grid
+     * @param grid the grid to draw
+     * @param width the visual width
+     * @param height the visual height
+     * @param name the name of the board
+     */
+    public BoardCanvas(Grid grid, double width, double height, String name) {
+        super(width, height);
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.cellWidth = width / cols;
+        this.cellHeight = height / rows;
+        this.name = name;
+        this.sprites = BlockSprites.forSize(cellWidth, cellHeight);
+        this.dirty = new DirtyCells(rows, this::paintCell);
+
+        grid.addCellChangedListener((x, y, value) -> markDirty(x, y));
+
+        setOnMouseClicked(this::mouseClicked);
+        setOnMouseMoved(this::mouseMoved);
+        setOnMouseExited(event -> hover(-1, -1));
+
+        paint();
+    }
+
+    /**
+     * Set the listener to handle a cell being clicked
+     * @param listener listener to add
+     */
+    public void setOnCellClicked(CellSelectedListener listener) {
+        this.cellClickedListener = listener;
+    }
+
+    /**
+     * Set the listener to handle the mouse moving onto a different cell, or off the board
+     * @param listener listener to add
+     */
+    public void setOnCellHovered(CellSelectedListener listener) {
+        this.cellHoveredListener = listener;
+    }
+
+    /**
+     * Set the listener to handle the right mouse button being clicked
+     * @param listener listener to add
+     */
+    public void setOnRightClicked(RightClickedListener listener) {
+        this.rightClickedListener = listener;
+    }
+
+    /**
+     * Mark a cell to be repainted at the next pulse
+     * @param x column
+     * @param y row
+     */
+    public void markDirty(int x, int y) {
+        dirty.mark(x, y);
+    }
+
+    /**
+     * Repaint every dirty cell now
+     */
+    public void flush() {
+        dirty.flush();
+    }
+
+    /**
+     * Repaint every cell now
+     */
+    public void paint() {
+        getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+        dirty.clear();
+        for(int y = 0; y < rows; y++) {
+            for(int x = 0; x < cols; x++) {
+                paintCell(x, y);
+            }
+        }
+    }
+
+    /**
+     * Repaint a single cell from the value in the grid
+     * @param x column
+     * @param y row
+     */
+    protected void paintCell(int x, int y) {
+        drawCell(x, y, BlockSprites.PLAIN);
+    }
+
+    /**
+     * Draw a single cell from the value in the grid, using the given variant of its sprite
+     * @param x column
+     * @param y row
+     * @param variant which variant of the block to draw
+     */
+    protected void drawCell(int x, int y, int variant) {
+        GraphicsContext gc = getGraphicsContext2D();
+        double left = x * cellWidth;
+        double top = y * cellHeight;
+
+        //Empty sprites are see-through, so the old cell is cleared first
+        gc.clearRect(left, top, cellWidth, cellHeight);
+        sprites.draw(gc, grid.get(x, y), variant, left, top, cellWidth, cellHeight);
+    }
+
+    /**
+     * Get the grid this canvas draws
+     * @return the grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Get the width of each cell
+     * @return cell width
+     */
+    protected double getCellWidth() {
+        return cellWidth;
+    }
+
+    /**
+     * Get the height of each cell
+     * @return cell height
+     */
+    protected double getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * Pass a right click to the listener, if any
+     */
+    protected void rightClicked() {
+        if(rightClickedListener != null) {
+            rightClickedListener.rightClicked(name);
+        }
+    }
+
+    /**
+     * Find the cell under the mouse and pass a click to the listeners
+     * @param event mouse event
+     */
+    protected void mouseClicked(MouseEvent event) {
+        int x = (int) (event.getX() / cellWidth);
+        int y = (int) (event.getY() / cellHeight);
+        if(!grid.getBitboard().contains(x, y)) {
+            return;
+        }
+
+        if(event.getButton() == MouseButton.SECONDARY) {
+            rightClicked();
+        } else if(cellClickedListener != null) {
+            cellClickedListener.cellSelected(x, y);
+        }
+    }
+
+    /**
+     * Find the cell under the mouse and pass it to the listener if it has changed
+     * @param event mouse event
+     */
+    private void mouseMoved(MouseEvent event) {
+        int x = (int) (event.getX() / cellWidth);
+        int y = (int) (event.getY() / cellHeight);
+        if(!grid.getBitboard().contains(x, y)) {
+            x = -1;
+            y = -1;
+        }
+        hover(x, y);
+    }
+
+    /**
+     * Update the cell the mouse is over, calling the listener if it has changed
+     * @param x column, or -1 if off the board
+     * @param y row, or -1 if off the board
+     */
+    private void hover(int x, int y) {
+        if(x == hoverX && y == hoverY) {
+            return;
+        }
+        hoverX = x;
+        hoverY = y;
+        if(cellHoveredListener != null) {
+            cellHoveredListener.cellSelected(x, y);
+        }
+    }
+
+}
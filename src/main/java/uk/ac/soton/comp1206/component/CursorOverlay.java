@@ -0,0 +1,156 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+
+/**
+ * A Cursor Overlay is a transparent layer drawn over a board showing the block under the mouse, the keyboard cursor and
+ * the selected block. Each is drawn inside its own block, so moving one only clears and redraws the block it left and
+ * the block it moved to; the board underneath is never repainted.
+ */
+public class CursorOverlay extends Canvas {
+
+    /**
+     * Shading of the block under the mouse
+     */
+    private static final Color HOVER = Color.rgb(255, 255, 255, 0.2);
+
+    /**
+     * Outline of the keyboard cursor
+     */
+    private static final Color CURSOR = Color.WHITE;
+
+    /**
+     * Outline of the selected block
+     */
+    private static final Color SELECTED = Color.GOLD;
+
+    /**
+     * The size of each block
+     */
+    private final double cellWidth;
+    private final double cellHeight;
+
+    /**
+     * The block under the mouse, or -1 if there is none
+     */
+    private int hoverX = -1;
+    private int hoverY = -1;
+
+    /**
+     * The block the keyboard cursor is on, or -1 if it is not shown
+     */
+    private int cursorX = -1;
+    private int cursorY = -1;
+
+    /**
+     * The selected block, or -1 if there is none
+     */
+    private int selectedX = -1;
+    private int selectedY = -1;
+
+    /**
+     * Create a new, empty overlay covering a board
+     * @param cols number of columns in the board
+     * @param rows number of rows in the board
+     * @param width the visual width
+     * @param height the visual height
+     */
+    public CursorOverlay(int cols, int rows, double width, double height) {
+        super(width, height);
+        this.cellWidth = width / cols;
+        this.cellHeight = height / rows;
+
+        //Clicks and hovers pass through to the blocks underneath
+        setMouseTransparent(true);
+    }
+
+    /**
+     * Shade the block under the mouse
+     * @param x column, or -1 if the mouse is not over the board
+     * @param y row, or -1 if the mouse is not over the board
+     */
+    public void setHover(int x, int y) {
+        int oldX = hoverX;
+        int oldY = hoverY;
+        hoverX = x;
+        hoverY = y;
+        moved(oldX, oldY, x, y);
+    }
+
+    /**
+     * Outline the block the keyboard cursor is on
+     * @param x column, or -1 to hide the cursor
+     * @param y row, or -1 to hide the cursor
+     */
+    public void setCursor(int x, int y) {
+        int oldX = cursorX;
+        int oldY = cursorY;
+        cursorX = x;
+        cursorY = y;
+        moved(oldX, oldY, x, y);
+    }
+
+    /**
+     * Outline the selected block
+     * @param x column, or -1 to clear the selection
+     * @param y row, or -1 to clear the selection
+     */
+    public void setSelected(int x, int y) {
+        int oldX = selectedX;
+        int oldY = selectedY;
+        selectedX = x;
+        selectedY = y;
+        moved(oldX, oldY, x, y);
+    }
+
+    /**
+     * Redraw the blocks a highlight has moved between
+     * @param oldX column it was on
+     * @param oldY row it was on
+     * @param x column it is now on
+     * @param y row it is now on
+     */
+    private void moved(int oldX, int oldY, int x, int y) {
+        if(oldX == x && oldY == y) {
+            return;
+        }
+        drawCell(oldX, oldY);
+        drawCell(x, y);
+    }
+
+    /**
+     * Clear a block and draw every highlight on it
+     * @param x column
+     * @param y row
+     */
+    private void drawCell(int x, int y) {
+        if(x < 0 || y < 0) {
+            return;
+        }
+        var gc = getGraphicsContext2D();
+        double left = x * cellWidth;
+        double top = y * cellHeight;
+        gc.clearRect(left, top, cellWidth, cellHeight);
+
+        if(x == hoverX && y == hoverY) {
+            gc.setFill(HOVER);
+            gc.fillRect(left, top, cellWidth, cellHeight);
+        }
+
+        //Outlines are inset so they stay within the block, and thinner on small blocks
+        double inset = Math.min(4, Math.min(cellWidth, cellHeight) / 4);
+        if(x == selectedX && y == selectedY) {
+            double line = Math.min(3, inset);
+            gc.setStroke(SELECTED);
+            gc.setLineWidth(line);
+            gc.strokeRect(left + line / 2, top + line / 2, cellWidth - line, cellHeight - line);
+        }
+        if(x == cursorX && y == cursorY) {
+            gc.setStroke(CURSOR);
+            gc.setLineWidth(Math.min(2, inset / 2));
+            gc.strokeRect(left + inset, top + inset, cellWidth - inset * 2, cellHeight - inset * 2);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.Arrays;
+
+/**
+ * Dirty Cells tracks which cells of a view need repainting, one bit per column of each row. Marking a cell queues the
+ * view on the RenderQueue, which paints every dirty cell at the next pulse. A cell marked several times before then is
+ * only painted once.
+ */
+public class DirtyCells {
+
+    /**
+     * Paints a single cell of a view
+     */
+    public interface Painter {
+
+        /**
+         * Repaint a cell from the current state of the model
+         * @param x column
+         * @param y row
+         */
+        public void paintCell(int x, int y);
+
+    }
+
+    /**
+     * The dirty cells, one bit per column of each row
+     */
+    private final long[] dirty;
+
+    /**
+     * Paints the dirty cells
+     */
+    private final Painter painter;
+
+    /**
+     * Whether these cells are waiting on the render queue
+     */
+    private boolean queued;
+
+    /**
+     * Create a new, clean set of cells
+     * @param rows number of rows, of up to 64 columns each
+     * @param painter paints the dirty cells
+     */
+    public DirtyCells(int rows, Painter painter) {
+        this.dirty = new long[rows];
+        this.painter = painter;
+    }
+
+    /**
+     * Mark a cell to be repainted at the next pulse
+     * @param x column
+     * @param y row
+     */
+    public void mark(int x, int y) {
+        dirty[y] |= 1L << x;
+        if(!queued) {
+            queued = true;
+            RenderQueue.schedule(this);
+        }
+    }
+
+    /**
+     * Forget every dirty cell, for when the whole view has just been repainted
+     */
+    public void clear() {
+        Arrays.fill(dirty, 0);
+    }
+
+    /**
+     * Repaint every dirty cell now
+     */
+    public void flush() {
+        queued = false;
+        for(int y = 0; y < dirty.length; y++) {
+            long cells = dirty[y];
+            dirty[y] = 0;
+            while(cells != 0) {
+                painter.paintCell(Long.numberOfTrailingZeros(cells), y);
+                cells &= cells - 1;
+            }
+        }
+    }
+
+}
@@ -28,7 +28,7 @@ import java.security.Key;
  *
  * Displays an empty square (when the value is 0) or a coloured square depending on value.
  *
- * The GameBlock value should be bound to a corresponding block in the Grid model.
+ * The GameBoard sets the value of each GameBlock from the corresponding block in the Grid model when it changes.
  */
 public class GameBlock extends Canvas {
 
@@ -56,7 +56,23 @@ public class GameBlock extends Canvas {
             Color.PURPLE
     };
 
-    private final GameBoard gameBoard;
+    /**
+     * Get the colour for a block value. Piece sets with more values than colours reuse the colours in turn.
+     * @param value the block value, 0 for empty
+     * @return the colour
+     */
+    public static Color colour(int value) {
+        return COLOURS[colourIndex(value)];
+    }
+
+    /**
+     * Get the index into the colours for a block value
+     * @param value the block value, 0 for empty
+     * @return the colour index
+     */
+    public static int colourIndex(int value) {
+        return value == 0 ? 0 : 1 + (value - 1) % (COLOURS.length - 1);
+    }
 
     private final double width;
     private final double height;
@@ -76,20 +92,24 @@ public class GameBlock extends Canvas {
      */
     private final IntegerProperty value = new SimpleIntegerProperty(0);
 
+    /**
+     * The pre-rendered blocks this block is painted from
+     */
+    private final BlockSprites sprites;
+
     /**
      * Create a new single Game Block
-     * @param gameBoard the board this block belongs to
      * @param x the column the block exists in
      * @param y the row the block exists in
      * @param width the width of the canvas to render
      * @param height the height of the canvas to render
      */
-    public GameBlock(GameBoard gameBoard, int x, int y, double width, double height) {
-        this.gameBoard = gameBoard;
+    public GameBlock(int x, int y, double width, double height) {
         this.width = width;
         this.height = height;
         this.x = x;
         this.y = y;
+        this.sprites = BlockSprites.forSize(width, height);
 
         //A canvas needs a fixed width and height
         setWidth(width);
@@ -116,56 +136,13 @@ public class GameBlock extends Canvas {
      * Handle painting of the block canvas
      */
     public void paint() {
-        //If the block is empty, paint as empty
-        if(value.get() == 0) {
-            paintEmpty();
-        } else {
-            //If the block is not empty, paint with the colour represented by the value
-            paintColor(COLOURS[value.get()]);
-        }
-    }
-
-    /**
-     * Paint this canvas empty
-     */
-    private void paintEmpty() {
         var gc = getGraphicsContext2D();
 
         //Clear
         gc.clearRect(0,0,width,height);
 
-        //Fill
-        gc.setFill(Color.BLACK);
-        gc.setGlobalAlpha(0.6);
-        gc.fillRect(0,0, width, height);
-
-        //Border
-        gc.setStroke(Color.WHITE);
-        gc.setLineWidth(1);
-        gc.strokeRect(0,0,width,height);
-
-    }
-
-    /**
-     * Paint this canvas with the given colour
-     * @param colour the colour to paint
-     */
-    private void paintColor(Paint colour) {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0,0,width,height);
-
-        //Colour fill
-        gc.setFill(new RadialGradient(0,0,0.5,0.5,0.6,true,CycleMethod.NO_CYCLE,new Stop(0.0,Color.WHITE), new Stop(1,(Color) colour)));
-
-        gc.setGlobalAlpha(1);
-        gc.fillRect(0,0, width, height);
-
-        //Border
-        gc.setStroke(Color.WHITE);
-        gc.setLineWidth(2);
-        gc.strokeRect(0,0,width,height);
+        //Empty or coloured block, with its border
+        sprites.draw(gc, value.get(), BlockSprites.PLAIN, 0, 0, width, height);
     }
 
     /**
@@ -193,58 +170,11 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Bind the value of this block to another property. Used to link the visual block to a corresponding block in the Grid.
-     * @param input property to bind the value to
+     * Set the value of this block, repainting it if it has changed
+     * @param value the new value
      */
-    public void bind(ObservableValue<? extends Number> input) {
-        value.bind(input);
-    }
-
-    /**
-     * Creates a circle in the centre of the canvas
-     */
-    public void setCircle(){
-        var gc = getGraphicsContext2D();
-
-        gc.setFill(Color.BLACK);
-        gc.setGlobalAlpha(0.3);
-        gc.fillOval(height*0.175,width*0.175,height*0.65,width*0.65);
-
-    }
-
-    /**
-     * Adds a white shaded effect to the canvas
-     */
-    public void hover(){
-        var gc = getGraphicsContext2D();
-
-        gc.setFill(Color.WHITE);
-        gc.setGlobalAlpha(0.2);
-        gc.fillRect(0,0, width, height);
-
-    }
-
-    /**
-     * Fades out the current game block
-     */
-    public void fadeOut(){
-        var gc = getGraphicsContext2D();
-
-        gc.setGlobalAlpha(1);
-        gc.setFill(Color.WHITE);
-        gc.fillRect(0,0, width, height);
-
-        Timeline timeline = new Timeline(
-                new KeyFrame(Duration.millis(100), new KeyValue(opacityProperty(),0,Interpolator.EASE_OUT))
-        );
-
-        timeline.play();
-
-        timeline.setOnFinished(event -> {
-            opacityProperty().set(1);
-            paint();
-        });
-
+    public void setValue(int value) {
+        this.value.set(value);
     }
 
 }
@@ -8,11 +8,12 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.LineClear;
 import uk.ac.soton.comp1206.event.BlockClickedListener;
+import uk.ac.soton.comp1206.event.BlockHoveredListener;
 import uk.ac.soton.comp1206.event.RightClickedListener;
 import uk.ac.soton.comp1206.game.Grid;
 
-import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -22,6 +23,9 @@ import java.util.List;
  * The GameBoard can hold an internal grid of it's own, for example, for displaying an upcoming block. It also be
  * linked to an external grid, for the main game board.
  *
+ * Changes to the grid are not painted straight away. Each changed block is marked dirty and given its new value by the
+ * RenderQueue at the next pulse, so a block changed several times in one event is only painted once.
+ *
  * The GameBoard is only a visual representation and should not contain game logic or model logic in it, which should
  * take place in the Grid.
  */
@@ -64,6 +68,11 @@ public class GameBoard extends GridPane {
      */
     GameBlock[][] blocks;
 
+    /**
+     * The blocks whose value in the grid has changed since they were last painted
+     */
+    private DirtyCells dirty;
+
     /**
      * The listener to call when a specific block is clicked
      */
@@ -74,6 +83,26 @@ public class GameBoard extends GridPane {
      */
     private RightClickedListener rightClickedListener;
 
+    /**
+     * The listener to call when the mouse moves onto or off a block
+     */
+    private BlockHoveredListener blockHoveredListener;
+
+    /**
+     * The layer showing where a piece would land, created the first time it is used
+     */
+    private PlacementPreview preview;
+
+    /**
+     * The layer flashing cleared lines, created the first time it is used
+     */
+    private LineClearEffects effects;
+
+    /**
+     * The layer showing the mouse hover, keyboard cursor and selection, created the first time it is used
+     */
+    private CursorOverlay overlay;
+
     /**
      * Create a new GameBoard, based off a given grid, with a visual width and height.
      * @param grid linked grid
@@ -125,6 +154,48 @@ public class GameBoard extends GridPane {
         return blocks[x][y];
     }
 
+    /**
+     * Get the layer drawn over this board showing where a piece would land
+     * @return the preview
+     */
+    public PlacementPreview getPreview() {
+        if(preview == null) {
+            preview = new PlacementPreview(cols, rows, width, height);
+
+            //Span every cell and sit above the blocks
+            add(preview, 0, 0, cols, rows);
+        }
+        return preview;
+    }
+
+    /**
+     * Get the layer drawn over this board flashing cleared lines
+     * @return the effects layer
+     */
+    public LineClearEffects getEffects() {
+        if(effects == null) {
+            effects = new LineClearEffects(cols, rows, width, height);
+
+            //Span every cell and sit above the blocks
+            add(effects, 0, 0, cols, rows);
+        }
+        return effects;
+    }
+
+    /**
+     * Get the layer drawn over this board showing the mouse hover, keyboard cursor and selection
+     * @return the overlay
+     */
+    public CursorOverlay getOverlay() {
+        if(overlay == null) {
+            overlay = new CursorOverlay(cols, rows, width, height);
+
+            //Span every cell and sit above the blocks
+            add(overlay, 0, 0, cols, rows);
+        }
+        return overlay;
+    }
+
     /**
      * Build the GameBoard by creating a block at every x and y column and row
      */
@@ -137,12 +208,16 @@ public class GameBoard extends GridPane {
         setGridLinesVisible(true);
 
         blocks = new GameBlock[cols][rows];
+        dirty = new DirtyCells(rows, (x, y) -> blocks[x][y].setValue(grid.get(x, y)));
 
         for(var y = 0; y < rows; y++) {
             for (var x = 0; x < cols; x++) {
                 createBlock(x,y);
             }
         }
+
+        //Changes to the grid are applied to the blocks once per pulse
+        grid.addCellChangedListener((x, y, value) -> dirty.mark(x, y));
     }
 
     /**
@@ -156,7 +231,7 @@ public class GameBoard extends GridPane {
         var blockHeight = height / rows;
 
         //Create a new GameBlock UI component
-        GameBlock block = new GameBlock(this, x, y, blockWidth, blockHeight);
+        GameBlock block = new GameBlock(x, y, blockWidth, blockHeight);
 
         //Add to the GridPane
         add(block,x,y);
@@ -164,8 +239,8 @@ public class GameBoard extends GridPane {
         //Add to our block directory
         blocks[x][y] = block;
 
-        //Link the GameBlock component to the corresponding value in the Grid
-        block.bind(grid.getGridProperty(x,y));
+        //Start from the corresponding value in the Grid, later changes are applied by the render queue
+        block.setValue(grid.get(x,y));
 
         //Mouse click handler to trigger GameBoard blockClicked method
         block.setOnMouseClicked((e) -> blockClicked(e, block));
@@ -193,6 +268,14 @@ public class GameBoard extends GridPane {
         this.rightClickedListener = listener;
     }
 
+    /**
+     * Set the listener to handle the mouse moving onto or off a block. Replaces the default hover effect.
+     * @param listener listener to add
+     */
+    public void setOnBlockHovered(BlockHoveredListener listener) {
+        this.blockHoveredListener = listener;
+    }
+
     /**
      * Triggered when a block is clicked. Call the attached listener.
      * Calls block rotate if there is a right click
@@ -206,47 +289,41 @@ public class GameBoard extends GridPane {
             blockClickedListener.blockClicked(block);
         }
 
-        if(rightClickedListener != null) {
-            if(event.getButton() == MouseButton.PRIMARY && this instanceof PieceBoard){ //Current piece grid
-                logger.info("Left Click");
-                rightClickedListener.rightClicked(name);
-            }
-            else if(event.getButton() == MouseButton.SECONDARY && cols > 3){ //Main grid
-                logger.info("Right Click");
-                rightClickedListener.rightClicked(name);
-            }
+        if(rightClickedListener != null && event.getButton() == MouseButton.SECONDARY) {
+            logger.info("Right Click");
+            rightClickedListener.rightClicked(name);
         }
 
     }
 
     /**
-     * Adds or removes the hover effect on the current block
+     * Adds or removes the hover effect on the current block, or passes the hover to the attached listener
      * @param event Mouse event
      * @param block Block being hovered
      */
     public void hoverBlock(MouseEvent event, GameBlock block){
 
-        if(!(this instanceof PieceBoard)){ //Check if main grid
+        if(blockHoveredListener != null){
+            blockHoveredListener.blockHovered(event.getEventType() == MouseEvent.MOUSE_ENTERED ? block : null);
+        }
+        else{
+            //Shade the block on the overlay, so the block itself is not repainted
             if(event.getEventType() == MouseEvent.MOUSE_ENTERED){
-                block.hover();
+                getOverlay().setHover(block.getX(), block.getY());
             }
             else if(event.getEventType() == MouseEvent.MOUSE_EXITED){
-                block.paint();
+                getOverlay().setHover(-1, -1);
             }
         }
 
     }
 
     /**
-     * Fades out a set of blocks at the given coordinates
-     * @param blockCoords Hash set of block coordinates
+     * Fades out every block in the cleared rows and columns, on the effects layer over the blocks
+     * @param cleared The rows and columns cleared
      */
-    public void fadeOut(HashSet<GameBlockCoordinate> blockCoords){
-        
-        for (GameBlockCoordinate coords : blockCoords) {
-            blocks[coords.getX()][coords.getY()].fadeOut();
-        }
-        
+    public void fadeOut(LineClear cleared){
+        getEffects().play(cleared);
     }
 
 }
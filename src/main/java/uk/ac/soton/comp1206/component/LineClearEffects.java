@@ -0,0 +1,234 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+import uk.ac.soton.comp1206.engine.LineClear;
+
+import java.util.Arrays;
+
+/**
+ * Line Clear Effects is a transparent layer drawn over a board which flashes cleared lines. Each cleared block is filled
+ * white and fades away, following a configurable curve, to reveal the empty block underneath.
+ *
+ * Every clear on the board is animated by one AnimationTimer, which only runs while an effect is showing. A clear is
+ * held as its row and column masks, so starting one never allocates however many blocks it covers. Effects can be
+ * switched off for every board in low-power mode, set with the tetrecs.lowPower system property or setLowPower.
+ */
+public class LineClearEffects extends Canvas {
+
+    /**
+     * Whether effects are switched off
+     */
+    private static boolean lowPower = Boolean.getBoolean("tetrecs.lowPower");
+
+    /**
+     * Number of columns in the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the board
+     */
+    private final int rows;
+
+    /**
+     * The size of each block
+     */
+    private final double cellWidth;
+    private final double cellHeight;
+
+    /**
+     * How long each effect lasts, in nanoseconds
+     */
+    private long duration = 100_000_000L;
+
+    /**
+     * How the flash fades over the duration of the effect
+     */
+    private Interpolator curve = Interpolator.EASE_OUT;
+
+    /**
+     * The colour of the flash
+     */
+    private Color colour = Color.WHITE;
+
+    /**
+     * The cleared rows of each effect showing
+     */
+    private long[] effectRows = new long[4];
+
+    /**
+     * The cleared columns of each effect showing
+     */
+    private long[] effectCols = new long[4];
+
+    /**
+     * When each effect showing started, as a pulse timestamp, or 0 if it starts at the next pulse
+     */
+    private long[] effectStart = new long[4];
+
+    /**
+     * The number of effects showing
+     */
+    private int count;
+
+    /**
+     * Draws every effect showing at each pulse, and stops once they have all finished
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            draw(now);
+        }
+    };
+
+    /**
+     * Create a new effects layer covering a board
+     * @param cols number of columns in the board
+     * @param rows number of rows in the board
+     * @param width the visual width
+     * @param height the visual height
+     */
+    public LineClearEffects(int cols, int rows, double width, double height) {
+        super(width, height);
+        this.cols = cols;
+        this.rows = rows;
+        this.cellWidth = width / cols;
+        this.cellHeight = height / rows;
+
+        //Clicks and hovers pass through to the blocks underneath
+        setMouseTransparent(true);
+    }
+
+    /**
+     * Switch effects off or on for every board
+     * @param lowPower true to switch effects off
+     */
+    public static void setLowPower(boolean lowPower) {
+        LineClearEffects.lowPower = lowPower;
+    }
+
+    /**
+     * Check whether effects are switched off
+     * @return true in low-power mode
+     */
+    public static boolean isLowPower() {
+        return lowPower;
+    }
+
+    /**
+     * Set how long each effect lasts
+     * @param duration the duration
+     */
+    public void setDuration(Duration duration) {
+        this.duration = Math.max(1, (long) (duration.toMillis() * 1_000_000));
+    }
+
+    /**
+     * Set how the flash fades over the duration of an effect
+     * @param curve maps the time elapsed, from 0 to 1, to how far the flash has faded
+     */
+    public void setCurve(Interpolator curve) {
+        this.curve = curve;
+    }
+
+    /**
+     * Set the colour of the flash
+     * @param colour the colour
+     */
+    public void setColour(Color colour) {
+        this.colour = colour;
+    }
+
+    /**
+     * Flash every block in the cleared rows and columns
+     * @param cleared the rows and columns cleared
+     */
+    public void play(LineClear cleared) {
+        if(lowPower || cleared.isEmpty()) {
+            return;
+        }
+
+        if(count == effectStart.length) {
+            effectRows = Arrays.copyOf(effectRows, count * 2);
+            effectCols = Arrays.copyOf(effectCols, count * 2);
+            effectStart = Arrays.copyOf(effectStart, count * 2);
+        }
+        effectRows[count] = cleared.getRows();
+        effectCols[count] = cleared.getColumns();
+        effectStart[count] = 0;
+        count++;
+
+        timer.start();
+    }
+
+    /**
+     * Remove every effect showing
+     */
+    public void stop() {
+        timer.stop();
+        count = 0;
+        getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Draw every effect showing, and remove those which have finished
+     * @param now the pulse timestamp
+     */
+    private void draw(long now) {
+        var gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setFill(colour);
+
+        int showing = 0;
+        for(int i = 0; i < count; i++) {
+            if(effectStart[i] == 0) {
+                effectStart[i] = now;
+            }
+            double elapsed = (double) (now - effectStart[i]) / duration;
+            if(elapsed >= 1) {
+                continue;
+            }
+
+            gc.setGlobalAlpha(1 - curve.interpolate(0.0, 1.0, elapsed));
+            fill(effectRows[i], effectCols[i]);
+
+            //Keep the effects still showing together at the front
+            effectRows[showing] = effectRows[i];
+            effectCols[showing] = effectCols[i];
+            effectStart[showing] = effectStart[i];
+            showing++;
+        }
+        gc.setGlobalAlpha(1);
+
+        count = showing;
+        if(count == 0) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Fill every block in the given rows and columns, filling each block only once
+     * @param clearedRows bitmask of the cleared rows
+     * @param clearedCols bitmask of the cleared columns
+     */
+    private void fill(long clearedRows, long clearedCols) {
+        var gc = getGraphicsContext2D();
+        for(int y = 0; y < rows; y++) {
+            if((clearedRows & (1L << y)) != 0) {
+                gc.fillRect(0, y * cellHeight, cols * cellWidth, cellHeight);
+                continue;
+            }
+            long columns = clearedCols;
+            while(columns != 0) {
+                int x = Long.numberOfTrailingZeros(columns);
+                gc.fillRect(x * cellWidth, y * cellHeight, cellWidth, cellHeight);
+                columns &= columns - 1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * The Piece Canvas displays a single piece on a small grid drawn as one canvas. Clicking it passes a right click to the
+ * listener.
+ */
+public class PieceCanvas extends BoardCanvas {
+
+    /**
+     * Whether a circle is drawn on the centre cell
+     */
+    private boolean circle;
+
+    /**
+     * Create a new, empty piece canvas
+     * @param size number of columns and rows, at least the size of the largest piece
+     * @param width the visual width
+     * @param height the visual height
+     * @param name the name of the board
+     */
+    public PieceCanvas(int size, double width, double height, String name) {
+        super(new Grid(size, size), width, height, name);
+    }
+
+    /**
+     * Displays the given piece, centred if it is smaller than the grid
+     * @param gamePiece piece to display
+     */
+    public void displayPiece(GamePiece gamePiece) {
+        Grid grid = getGrid();
+        int[][] blocks = gamePiece.getBlocks();
+        int offsetX = (grid.getCols() - blocks.length) / 2;
+        int offsetY = (grid.getRows() - blocks.length) / 2;
+
+        for(int x = 0; x < grid.getCols(); x++) {
+            for(int y = 0; y < grid.getRows(); y++) {
+                int blockX = x - offsetX;
+                int blockY = y - offsetY;
+                boolean inShape = blockX >= 0 && blockY >= 0 && blockX < blocks.length && blockY < blocks.length;
+                grid.set(x, y, inShape && blocks[blockY][blockX] > 0 ? gamePiece.getValue() : 0);
+            }
+        }
+    }
+
+    /**
+     * Draw a circle on the centre cell, marking where the piece is played from
+     */
+    public void setCircle() {
+        circle = true;
+        markDirty(getGrid().getCols() / 2, getGrid().getRows() / 2);
+    }
+
+    /**
+     * Make the canvas not clickable
+     */
+    public void notClickable() {
+        setMouseTransparent(true);
+    }
+
+    /**
+     * Repaint a cell, drawing the centre cell with a circle if it is shown
+     * @param x column
+     * @param y row
+     */
+    @Override
+    protected void paintCell(int x, int y) {
+        boolean centre = x == getGrid().getCols() / 2 && y == getGrid().getRows() / 2;
+        drawCell(x, y, circle && centre ? BlockSprites.CIRCLE : BlockSprites.PLAIN);
+    }
+
+    /**
+     * Any click on a piece is passed on as a right click
+     * @param event mouse event
+     */
+    @Override
+    protected void mouseClicked(MouseEvent event) {
+        if(event.getButton() == MouseButton.PRIMARY) {
+            rightClicked();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.engine.Bitboard;
+import uk.ac.soton.comp1206.engine.PlacementTable;
+
+/**
+ * A Placement Preview is a transparent layer drawn over a GameBoard showing where a piece would land: every block it
+ * would cover is tinted green if the piece fits there, or red if it does not. A suggested move is tinted gold.
+ *
+ * The preview is redrawn only when the piece, position or result changes, and showing it never allocates, so it can
+ * follow every mouse movement without repainting the blocks underneath.
+ */
+public class PlacementPreview extends Canvas {
+
+    /**
+     * Tint of a piece which fits
+     */
+    private static final Color LEGAL = Color.rgb(0, 255, 0, 0.4);
+
+    /**
+     * Tint of a piece which does not fit
+     */
+    private static final Color ILLEGAL = Color.rgb(255, 0, 0, 0.4);
+
+    /**
+     * Tint of a suggested move
+     */
+    private static final Color HINT = Color.rgb(255, 215, 0, 0.5);
+
+    /**
+     * Number of columns in the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the board
+     */
+    private final int rows;
+
+    /**
+     * The blocks covered by the piece shown, one bit per column of each row
+     */
+    private final long[] footprint;
+
+    /**
+     * The shape shown, or -1 if nothing is shown
+     */
+    private int shownShape = -1;
+
+    /**
+     * The block the shape shown is centred on
+     */
+    private int shownX;
+    private int shownY;
+
+    /**
+     * The tint of the shape shown
+     */
+    private Color shownTint;
+
+    /**
+     * Create a new, empty preview covering a board
+     * @param cols number of columns in the board
+     * @param rows number of rows in the board
+     * @param width the visual width
+     * @param height the visual height
+     */
+    public PlacementPreview(int cols, int rows, double width, double height) {
+        super(width, height);
+        this.cols = cols;
+        this.rows = rows;
+        this.footprint = new long[rows];
+
+        //Clicks and hovers pass through to the blocks underneath
+        setMouseTransparent(true);
+    }
+
+    /**
+     * Show a shape centred on the given block, tinted by whether it can be played there
+     * @param table the placement table for the board
+     * @param board the board
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     */
+    public void show(PlacementTable table, Bitboard board, int shape, int x, int y) {
+        draw(table, shape, x, y, table.canPlace(board, shape, x, y) ? LEGAL : ILLEGAL);
+    }
+
+    /**
+     * Show a suggested move: a shape centred on the given block, tinted gold
+     * @param table the placement table for the board
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     */
+    public void showHint(PlacementTable table, int shape, int x, int y) {
+        draw(table, shape, x, y, HINT);
+    }
+
+    /**
+     * Draw a shape centred on the given block, unless it is already shown
+     * @param table the placement table for the board
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     * @param tint the tint
+     */
+    private void draw(PlacementTable table, int shape, int x, int y, Color tint) {
+        if(shape == shownShape && x == shownX && y == shownY && tint == shownTint) {
+            return;
+        }
+        shownShape = shape;
+        shownX = x;
+        shownY = y;
+        shownTint = tint;
+
+        var gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setFill(tint);
+
+        double blockWidth = getWidth() / cols;
+        double blockHeight = getHeight() / rows;
+        table.footprint(shape, x, y, footprint);
+        for(int row = 0; row < rows; row++) {
+            long blocks = footprint[row];
+            while(blocks != 0) {
+                int col = Long.numberOfTrailingZeros(blocks);
+                gc.fillRect(col * blockWidth, row * blockHeight, blockWidth, blockHeight);
+                blocks &= blocks - 1;
+            }
+        }
+    }
+
+    /**
+     * Remove the shape shown, if any
+     */
+    public void hide() {
+        if(shownShape < 0) {
+            return;
+        }
+        shownShape = -1;
+        getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Check whether a shape is being shown
+     * @return true if a shape is shown
+     */
+    public boolean isShowing() {
+        return shownShape >= 0;
+    }
+
+}
@@ -0,0 +1,65 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Render Queue applies changes to the model to the screen once per pulse. Views mark the cells which have changed
+ * as dirty, and the queue repaints every dirty cell of every view together at the next pulse. A burst of changes, such
+ * as a piece being played, lines being cleared and the next piece being displayed, then costs one repaint of each
+ * changed cell rather than a paint per change.
+ *
+ * One timer is shared by every view, and it only runs while there are cells waiting to be repainted. Like the rest of
+ * the scene graph, the queue must only be used on the JavaFX thread.
+ */
+public class RenderQueue {
+
+    /**
+     * The cells waiting for the next pulse
+     */
+    private static final List<DirtyCells> pending = new ArrayList<>();
+
+    /**
+     * Repaints the pending cells at each pulse, and stops once there are none
+     */
+    private static final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+
+    /**
+     * The queue is only used through its static methods
+     */
+    private RenderQueue() {
+    }
+
+    /**
+     * Repaint the given cells at the next pulse
+     * @param cells the dirty cells of a view
+     */
+    static void schedule(DirtyCells cells) {
+        if(pending.isEmpty()) {
+            timer.start();
+        }
+        pending.add(cells);
+    }
+
+    /**
+     * Repaint every pending cell now, rather than waiting for the next pulse
+     */
+    public static void flush() {
+        timer.stop();
+
+        //Repainting can mark more cells dirty, which are then left for the next pulse
+        var views = pending.toArray(new DirtyCells[0]);
+        pending.clear();
+        for(DirtyCells cells : views) {
+            cells.flush();
+        }
+    }
+
+}
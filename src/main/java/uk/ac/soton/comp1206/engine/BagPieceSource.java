@@ -0,0 +1,119 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deals pieces from a shuffled bag holding one of every piece. When the bag is empty it is refilled and shuffled again,
+ * so every piece is dealt exactly once in each run through the bag.
+ */
+public class BagPieceSource implements PieceSource {
+
+    /**
+     * The seed the random generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The random generator used to shuffle the bag
+     */
+    private SplittableRandom random;
+
+    /**
+     * The pieces in the bag, in the order they will be dealt
+     */
+    private final int[] bag;
+
+    /**
+     * The index of the next piece to deal from the bag
+     */
+    private int index;
+
+    /**
+     * The number of pieces dealt so far
+     */
+    private long position;
+
+    /**
+     * Create a new source with a randomly chosen seed
+     * @param pieces the number of pieces in the bag
+     */
+    public BagPieceSource(int pieces) {
+        this(ThreadLocalRandom.current().nextLong(), pieces);
+    }
+
+    /**
+     * Create a new source from the given seed
+     * @param seed the seed
+     * @param pieces the number of pieces in the bag
+     */
+    public BagPieceSource(long seed, int pieces) {
+        this.seed = seed;
+        this.bag = new int[pieces];
+        reset();
+    }
+
+    /**
+     * Start the sequence of pieces again from the seed, with the bag back in its starting order
+     */
+    private void reset() {
+        random = new SplittableRandom(seed);
+        for(int i = 0; i < bag.length; i++) {
+            bag[i] = i;
+        }
+        index = bag.length;
+        position = 0;
+    }
+
+    @Override
+    public int next() {
+        if(index == bag.length) {
+            shuffle();
+            index = 0;
+        }
+        position++;
+        return bag[index++];
+    }
+
+    /**
+     * Shuffle the bag in place
+     */
+    private void shuffle() {
+        for(int i = bag.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int piece = bag[i];
+            bag[i] = bag[j];
+            bag[j] = piece;
+        }
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public boolean isBag() {
+        return true;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) {
+        if(position < 0) {
+            throw new IllegalArgumentException("Invalid position: " + position);
+        }
+        if(position < this.position) {
+            //Start the sequence again from the seed
+            reset();
+        }
+        while(this.position < position) {
+            next();
+        }
+    }
+
+}
@@ -0,0 +1,324 @@
+package uk.ac.soton.comp1206.engine;
+
+import uk.ac.soton.comp1206.event.CellChangedListener;
+
+/**
+ * The Bitboard is the primitive model of a game board. It holds no JavaFX state so it can be used without the UI.
+ *
+ * Occupancy is held as one long per row, with bit x set when the block in column x is filled. The value of each block
+ * (the colour it is displayed with) is packed into a byte array, indexed by row and then column. The number of filled
+ * blocks in every row and column is kept as blocks change, so completed lines can be found without scanning the board.
+ * A Zobrist hash of the occupancy is also kept as blocks change, so search code can recognise a board it has seen.
+ *
+ * A Grid wraps a Bitboard to provide the observable properties the GameBoard binds to.
+ */
+public class Bitboard {
+
+    /**
+     * The largest number of rows or columns a board can have, as each row is held in a single long
+     */
+    public static final int MAX_SIZE = 64;
+
+    /**
+     * The number of columns in this board
+     */
+    private final int cols;
+
+    /**
+     * The number of rows in this board
+     */
+    private final int rows;
+
+    /**
+     * The occupied blocks of each row, one bit per column. Read directly by the placement table.
+     */
+    final long[] occupied;
+
+    /**
+     * The value of every block, stored at y * cols + x
+     */
+    private final byte[] values;
+
+    /**
+     * The number of filled blocks in each row
+     */
+    private final int[] rowFill;
+
+    /**
+     * The number of filled blocks in each column
+     */
+    private final int[] colFill;
+
+    /**
+     * The occupancy of a row which has every block filled
+     */
+    private final long fullRow;
+
+    /**
+     * The Zobrist hash of the occupancy
+     */
+    private long hash;
+
+    /**
+     * Listener to call when a block changes value
+     */
+    private CellChangedListener cellChangedListener;
+
+    /**
+     * Create a new empty Bitboard with the specified number of columns and rows
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public Bitboard(int cols, int rows) {
+        if(cols < 1 || rows < 1 || cols > MAX_SIZE || rows > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + cols + "x" + rows);
+        }
+
+        this.cols = cols;
+        this.rows = rows;
+
+        occupied = new long[rows];
+        values = new byte[cols * rows];
+        rowFill = new int[rows];
+        colFill = new int[cols];
+        fullRow = cols == 64 ? -1L : (1L << cols) - 1;
+    }
+
+    /**
+     * Set the listener to handle an event when a block changes value
+     * @param listener listener to add
+     */
+    public void setOnCellChanged(CellChangedListener listener) {
+        this.cellChangedListener = listener;
+    }
+
+    /**
+     * Get the number of columns in this board
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows in this board
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Check whether the given column and row is inside this board
+     * @param x column
+     * @param y row
+     * @return true if the block exists
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < cols && y < rows;
+    }
+
+    /**
+     * Get the value of the block at the given column and row
+     * @param x column
+     * @param y row
+     * @return the value, or -1 if there is no such block
+     */
+    public int get(int x, int y) {
+        if(!contains(x, y)) {
+            return -1;
+        }
+        return values[y * cols + x] & 0xFF;
+    }
+
+    /**
+     * Update the value of the block at the given column and row
+     * @param x column
+     * @param y row
+     * @param value the new value, 0 for empty
+     */
+    public void set(int x, int y, int value) {
+        if(!contains(x, y)) {
+            throw new IndexOutOfBoundsException("No such block: " + x + "," + y);
+        }
+
+        int index = y * cols + x;
+        if((values[index] & 0xFF) == value) {
+            return;
+        }
+
+        boolean wasOccupied = values[index] != 0;
+        values[index] = (byte) value;
+        if(value == 0) {
+            occupied[y] &= ~(1L << x);
+            rowFill[y]--;
+            colFill[x]--;
+            hash ^= Zobrist.key(x, y);
+        } else if(!wasOccupied) {
+            occupied[y] |= 1L << x;
+            rowFill[y]++;
+            colFill[x]++;
+            hash ^= Zobrist.key(x, y);
+        }
+
+        if(cellChangedListener != null) {
+            cellChangedListener.cellChanged(x, y, value);
+        }
+    }
+
+    /**
+     * Check whether the block at the given column and row is filled
+     * @param x column
+     * @param y row
+     * @return true if the block is filled
+     */
+    public boolean isOccupied(int x, int y) {
+        return (occupied[y] & (1L << x)) != 0;
+    }
+
+    /**
+     * Get the occupancy of a row, with bit x set when the block in column x is filled
+     * @param y row
+     * @return row occupancy
+     */
+    public long getRow(int y) {
+        return occupied[y];
+    }
+
+    /**
+     * Get the Zobrist hash of the occupancy of this board
+     * @return the hash, equal to Zobrist.hash of the rows
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the number of filled blocks in a row
+     * @param y row
+     * @return number of filled blocks
+     */
+    public int getRowFill(int y) {
+        return rowFill[y];
+    }
+
+    /**
+     * Get the number of filled blocks in a column
+     * @param x column
+     * @return number of filled blocks
+     */
+    public int getColumnFill(int x) {
+        return colFill[x];
+    }
+
+    /**
+     * Empty every block in a row
+     * @param y row
+     * @return number of blocks cleared
+     */
+    public int clearRow(int y) {
+        int blocks = rowFill[y];
+        long row = occupied[y];
+        while(row != 0) {
+            set(Long.numberOfTrailingZeros(row), y, 0);
+            row &= row - 1;
+        }
+        return blocks;
+    }
+
+    /**
+     * Empty every block in a column
+     * @param x column
+     * @return number of blocks cleared
+     */
+    public int clearColumn(int x) {
+        int blocks = colFill[x];
+        for(int y = 0; y < rows && colFill[x] > 0; y++) {
+            set(x, y, 0);
+        }
+        return blocks;
+    }
+
+    /**
+     * Clear every completed line among the given rows and columns. Only the rows and columns given are checked, so
+     * after a piece is played only the lines it covers need to be passed in.
+     * @param rowsToCheck bitmask of the rows to check
+     * @param colsToCheck bitmask of the columns to check
+     * @param cleared filled in with the lines and number of blocks cleared
+     */
+    public void clearLines(long rowsToCheck, long colsToCheck, LineClear cleared) {
+        cleared.reset();
+
+        //Find every full line before clearing any, as rows and columns share blocks
+        while(rowsToCheck != 0) {
+            int y = Long.numberOfTrailingZeros(rowsToCheck);
+            rowsToCheck &= rowsToCheck - 1;
+            if(rowFill[y] == cols) {
+                cleared.addRow(y);
+            }
+        }
+        while(colsToCheck != 0) {
+            int x = Long.numberOfTrailingZeros(colsToCheck);
+            colsToCheck &= colsToCheck - 1;
+            if(colFill[x] == rows) {
+                cleared.addColumn(x);
+            }
+        }
+
+        int blocks = 0;
+        long fullRows = cleared.getRows();
+        while(fullRows != 0) {
+            blocks += clearRow(Long.numberOfTrailingZeros(fullRows));
+            fullRows &= fullRows - 1;
+        }
+        long fullCols = cleared.getColumns();
+        while(fullCols != 0) {
+            blocks += clearColumn(Long.numberOfTrailingZeros(fullCols));
+            fullCols &= fullCols - 1;
+        }
+        cleared.setBlocks(blocks);
+    }
+
+    /**
+     * Get the occupancy of a row with every block filled
+     * @return full row occupancy
+     */
+    public long getFullRow() {
+        return fullRow;
+    }
+
+    /**
+     * Empty every block in the board
+     */
+    public void clear() {
+        for(int y = 0; y < rows; y++) {
+            long row = occupied[y];
+            while(row != 0) {
+                int x = Long.numberOfTrailingZeros(row);
+                row &= row - 1;
+                set(x, y, 0);
+            }
+        }
+    }
+
+    /**
+     * Make this board a copy of another board of the same size. The listener of this board is called for every block
+     * which changes.
+     * @param other board to copy
+     */
+    public void copyFrom(Bitboard other) {
+        if(other.cols != cols || other.rows != rows) {
+            throw new IllegalArgumentException("Board sizes do not match");
+        }
+
+        for(int y = 0; y < rows; y++) {
+            long changed = occupied[y] | other.occupied[y];
+            while(changed != 0) {
+                int x = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                set(x, y, other.values[y * cols + x] & 0xFF);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Game Clock calls a task when a deadline is reached. Deadlines are System.nanoTime values, so they are not
+ * affected by changes to the wall clock.
+ *
+ * Every Game Clock shares one scheduler thread, so restarting a countdown only replaces a scheduled task rather than
+ * starting a new thread. The task is called on the scheduler thread and should hand any work to the thread which owns
+ * the game.
+ */
+public class GameClock {
+
+    /**
+     * The scheduler shared by every clock
+     */
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+        var thread = new Thread(task, "Game clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        //Cancelled countdowns are removed straight away rather than left in the queue until their deadline
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * The task to call when the deadline is reached
+     */
+    private final Runnable task;
+
+    /**
+     * The countdown currently scheduled, if any
+     */
+    private ScheduledFuture<?> pending;
+
+    /**
+     * Create a new clock which calls the given task when its deadline is reached
+     * @param task the task to call
+     */
+    public GameClock(Runnable task) {
+        this.task = task;
+    }
+
+    /**
+     * Schedule the task for the given deadline, replacing any countdown already scheduled
+     * @param deadline System.nanoTime value to call the task at
+     */
+    public synchronized void schedule(long deadline) {
+        cancel();
+        long delay = Math.max(0, deadline - System.nanoTime());
+        pending = scheduler.schedule(task, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cancel the countdown currently scheduled, if any
+     */
+    public synchronized void cancel() {
+        if(pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+}
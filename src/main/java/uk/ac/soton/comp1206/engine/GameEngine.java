@@ -0,0 +1,863 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+import uk.ac.soton.comp1206.event.EngineEvent;
+import uk.ac.soton.comp1206.event.EngineListener;
+
+/**
+ * The Game Engine holds the rules and state of a game of TetrECS: the board, the current and following pieces, the
+ * score, level, lives and multiplier, and the countdown for the current piece.
+ *
+ * It does not depend on JavaFX and does not start any threads. Time is read from a time source in nanoseconds, and
+ * the countdown only moves on when tick is called, so the engine can be run headless and as fast as the CPU allows.
+ * Changes are reported to a single EngineListener.
+ */
+public class GameEngine {
+
+    /**
+     * Format version written at the start of every snapshot
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Stored in a snapshot in place of a piece before any piece has been dealt. Catalogues with this many pieces or more
+     * cannot be snapshotted.
+     */
+    private static final int NO_PIECE = 0xff;
+
+    /**
+     * Bytes of a snapshot before the board: the version, columns and rows
+     */
+    private static final int SNAPSHOT_HEADER = 3;
+
+    /**
+     * Bytes of a snapshot after the board: the stats, pieces, flags, seed, position and time remaining
+     */
+    private static final int SNAPSHOT_STATE = 29;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * The shapes pieces are dealt from
+     */
+    private final PieceCatalogue catalogue;
+
+    /**
+     * The rules deciding scoring, levels, lives and the countdown
+     */
+    private final GameRules rules;
+
+    /**
+     * The board pieces are played on
+     */
+    private final Bitboard board;
+
+    /**
+     * The placement table for the board size
+     */
+    private final PlacementTable placementTable;
+
+    /**
+     * The lines cleared by the last piece played
+     */
+    private final LineClear linesCleared = new LineClear();
+
+    /**
+     * Decides the piece number of each piece dealt
+     */
+    private PieceSource pieces;
+
+    /**
+     * Supplies the current time in nanoseconds
+     */
+    private LongSupplier timeSource = System::nanoTime;
+
+    /**
+     * The piece number and rotation of the piece which is about to be placed
+     */
+    private int currentPiece = -1;
+    private int currentRotation;
+
+    /**
+     * The piece number and rotation of the piece which follows on from the current piece
+     */
+    private int followingPiece = -1;
+    private int followingRotation;
+
+    /**
+     * Player's score
+     */
+    private int score = 0;
+
+    /**
+     * Player's level
+     */
+    private int level = 0;
+
+    /**
+     * Player's lives
+     */
+    private int lives;
+
+    /**
+     * Player's multiplier
+     */
+    private int multiplier = 1;
+
+    /**
+     * The time, in nanoseconds, at which the current piece runs out of time
+     */
+    private long deadline;
+
+    /**
+     * The length, in nanoseconds, of the current countdown
+     */
+    private long loopLength;
+
+    /**
+     * The time, in nanoseconds, the game was paused at, while it is paused
+     */
+    private long pausedAt;
+
+    /**
+     * Whether the countdown is paused
+     */
+    private boolean paused = false;
+
+    /**
+     * Whether the game has started
+     */
+    private boolean started = false;
+
+    /**
+     * Whether the player has run out of lives
+     */
+    private boolean gameOver = false;
+
+    /**
+     * Listener to call when the state of the game changes
+     */
+    private EngineListener engineListener;
+
+    /**
+     * Journal to record each action in, if any
+     */
+    private MoveJournal journal;
+
+    /**
+     * Create a new engine with the specified columns and rows, dealing random pieces from the standard catalogue
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public GameEngine(int cols, int rows) {
+        this(cols, rows, PieceCatalogue.STANDARD, new RandomPieceSource(PieceCatalogue.STANDARD.size()));
+    }
+
+    /**
+     * Create a new engine with the specified columns and rows, dealing pieces from the given catalogue in the order
+     * decided by a piece source
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param catalogue the shapes to deal
+     * @param pieces decides the piece number of each piece dealt
+     */
+    public GameEngine(int cols, int rows, PieceCatalogue catalogue, PieceSource pieces) {
+        this(cols, rows, catalogue, pieces, GameRules.STANDARD);
+    }
+
+    /**
+     * Create a new engine with the specified columns and rows, dealing pieces from the given catalogue in the order
+     * decided by a piece source, and played by the given rules
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param catalogue the shapes to deal
+     * @param pieces decides the piece number of each piece dealt
+     * @param rules decide scoring, levels, lives and the countdown
+     */
+    public GameEngine(int cols, int rows, PieceCatalogue catalogue, PieceSource pieces, GameRules rules) {
+        this.cols = cols;
+        this.rows = rows;
+        this.catalogue = catalogue;
+        this.pieces = pieces;
+        this.rules = rules;
+        this.lives = rules.getLives();
+
+        board = new Bitboard(cols, rows);
+        placementTable = catalogue.getPlacementTable(cols, rows);
+    }
+
+    /**
+     * Set the listener to handle changes to the state of the game
+     * @param listener listener to add
+     */
+    public void setEngineListener(EngineListener listener) {
+        this.engineListener = listener;
+    }
+
+    /**
+     * Set the journal to record each action which changes the game in
+     * @param journal the journal, or null to stop recording
+     */
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Get the journal actions are being recorded in
+     * @return the journal, or null if not recording
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Set the source of the pieces dealt from now on
+     * @param pieces decides piece numbers
+     */
+    public void setPieceSource(PieceSource pieces) {
+        this.pieces = pieces;
+    }
+
+    /**
+     * Get the source of the pieces dealt
+     * @return piece source
+     */
+    public PieceSource getPieceSource() {
+        return pieces;
+    }
+
+    /**
+     * Get the seed of the piece source, which together with the player's actions reproduces this game
+     * @return the seed
+     */
+    public long getSeed() {
+        return pieces.getSeed();
+    }
+
+    /**
+     * Set the time source the countdown is measured against. Defaults to System.nanoTime.
+     * @param timeSource supplies the current time in nanoseconds
+     */
+    public void setTimeSource(LongSupplier timeSource) {
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * Start the game by dealing the first two pieces and starting the countdown
+     */
+    public void start() {
+        if(started) {
+            throw new IllegalStateException("Game already started");
+        }
+        started = true;
+
+        followingPiece = pieces.next();
+        followingRotation = 0;
+        nextPiece();
+        startLoop(timeSource.getAsLong());
+    }
+
+    /**
+     * Play the current piece centred on the given block, if it fits. Any completed lines are cleared and scored, then
+     * the next piece is dealt and the countdown restarted.
+     * @param x column
+     * @param y row
+     * @return true if the piece was played
+     */
+    public boolean place(int x, int y) {
+        if(!started || gameOver) {
+            return false;
+        }
+
+        int shape = getCurrentShape();
+        if(!placementTable.canPlace(board, shape, x, y)) {
+            fire(EngineEvent.PLACEMENT_FAILED);
+            return false;
+        }
+
+        placementTable.place(board, shape, x, y, catalogue.get(currentPiece).getValue());
+        if(journal != null) {
+            journal.recordPlace(x, y);
+        }
+
+        //Only the lines covered by the piece just played can have been completed
+        board.clearLines(placementTable.rowsCovered(shape, y), placementTable.columnsCovered(shape, x), linesCleared);
+        fire(EngineEvent.PIECE_PLACED);
+
+        int lines = linesCleared.getLines();
+        if(lines > 0) {
+            fire(EngineEvent.LINES_CLEARED);
+        }
+
+        score += score(lines, linesCleared.getBlocks());
+        multiplier = lines > 0 ? multiplier + 1 : 1;
+
+        boolean levelUp = rules.getLevel(score) > level;
+        if(levelUp) {
+            level = rules.getLevel(score);
+        }
+
+        fire(EngineEvent.STATS_CHANGED);
+        if(levelUp) {
+            fire(EngineEvent.LEVEL_UP);
+        }
+
+        nextPiece();
+        startLoop(timeSource.getAsLong());
+        return true;
+    }
+
+    /**
+     * Check whether the current piece can be played centred on the given block
+     * @param x column
+     * @param y row
+     * @return true if the piece fits
+     */
+    public boolean canPlace(int x, int y) {
+        return currentPiece >= 0 && placementTable.canPlace(board, getCurrentShape(), x, y);
+    }
+
+    /**
+     * Find every legal placement of a piece on the board as it is now
+     * @param piece piece number
+     * @param placements filled in with one word per rotation and row, at rotation * rows + y, with bit x set when the
+     *                   piece in that rotation can be played centred on block x,y. Must hold at least 4 * rows words.
+     * @return the number of legal placements
+     */
+    public int getLegalPlacements(int piece, long[] placements) {
+        return placementTable.legalPlacements(board, piece, placements);
+    }
+
+    /**
+     * Find every legal placement of the current piece on the board as it is now
+     * @return one word per rotation and row, at rotation * rows + y, with bit x set when the current piece in that
+     *         rotation can be played centred on block x,y
+     */
+    public long[] getLegalPlacements() {
+        long[] placements = new long[4 * rows];
+        if(currentPiece >= 0) {
+            getLegalPlacements(currentPiece, placements);
+        }
+        return placements;
+    }
+
+    /**
+     * Check whether the player has any move left: somewhere the current piece, or the following piece once swapped,
+     * can be played in some rotation
+     * @return true if a legal placement exists
+     */
+    public boolean hasLegalMove() {
+        if(currentPiece < 0) {
+            return false;
+        }
+        return placementTable.hasLegalPlacement(board, currentPiece)
+                || placementTable.hasLegalPlacement(board, followingPiece);
+    }
+
+    /**
+     * Calculates the score from a single move at the current multiplier
+     * @param lines lines cleared
+     * @param blocks blocks cleared
+     * @return the score to add
+     */
+    public int score(int lines, int blocks) {
+        return rules.score(lines, blocks, multiplier);
+    }
+
+    /**
+     * Rotate the current piece
+     * @param rotations number of quarter turns
+     */
+    public void rotateCurrentPiece(int rotations) {
+        if(currentPiece < 0 || gameOver) {
+            return;
+        }
+        currentRotation = Math.floorMod(currentRotation + rotations, 4);
+        if(journal != null) {
+            journal.recordRotate(rotations);
+        }
+        fire(EngineEvent.PIECE_ROTATED);
+    }
+
+    /**
+     * Swap the current and following pieces
+     */
+    public void swapCurrentPiece() {
+        if(currentPiece < 0 || gameOver) {
+            return;
+        }
+        int piece = followingPiece;
+        int rotation = followingRotation;
+        followingPiece = currentPiece;
+        followingRotation = currentRotation;
+        currentPiece = piece;
+        currentRotation = rotation;
+        if(journal != null) {
+            journal.recordSwap();
+        }
+        fire(EngineEvent.PIECES_SWAPPED);
+    }
+
+    /**
+     * Run out the countdown for the current piece immediately
+     */
+    public void timeout() {
+        expire(timeSource.getAsLong());
+    }
+
+    /**
+     * Move the countdown on to the current time, handling the current piece running out of time if its deadline has
+     * passed
+     */
+    public void tick() {
+        long now = timeSource.getAsLong();
+        while(started && !gameOver && !paused && now - deadline >= 0) {
+            //Each following countdown starts from the deadline just missed, so late ticks do not drift
+            expire(deadline);
+        }
+    }
+
+    /**
+     * Pause the countdown for the current piece
+     */
+    public void pause() {
+        if(paused) {
+            return;
+        }
+        paused = true;
+        pausedAt = timeSource.getAsLong();
+    }
+
+    /**
+     * Resume the countdown for the current piece, moving the deadline on by the time spent paused
+     */
+    public void resume() {
+        if(!paused) {
+            return;
+        }
+        paused = false;
+        deadline += timeSource.getAsLong() - pausedAt;
+    }
+
+    /**
+     * Check whether the countdown is paused
+     * @return true if paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Get the time left before the current piece runs out of time
+     * @return time left in nanoseconds, never negative
+     */
+    public long getTimeRemaining() {
+        long now = paused ? pausedAt : timeSource.getAsLong();
+        return Math.max(0, deadline - now);
+    }
+
+    /**
+     * Get the length of the current countdown. This is fixed when the countdown starts, using the level at that time.
+     * @return countdown length in nanoseconds
+     */
+    public long getLoopLength() {
+        return loopLength;
+    }
+
+    /**
+     * Handle the current piece running out of time. A life is lost, unless the game is endless, the multiplier is reset
+     * and the next piece dealt.
+     * @param now the time the countdown ran out
+     */
+    private void expire(long now) {
+        if(!started || gameOver) {
+            return;
+        }
+
+        if(journal != null) {
+            journal.recordTimeout();
+        }
+        if(!rules.isEndless()) {
+            lives--;
+        }
+        multiplier = 1;
+        fire(rules.isEndless() ? EngineEvent.TIMED_OUT : EngineEvent.LIFE_LOST);
+        fire(EngineEvent.STATS_CHANGED);
+
+        if(lives < 0) {
+            gameOver = true;
+            fire(EngineEvent.GAME_OVER);
+            return;
+        }
+
+        nextPiece();
+        startLoop(now);
+    }
+
+    /**
+     * The following piece becomes the current piece and a new following piece is dealt
+     */
+    private void nextPiece() {
+        currentPiece = followingPiece;
+        currentRotation = followingRotation;
+        followingPiece = pieces.next();
+        followingRotation = 0;
+        fire(EngineEvent.NEXT_PIECE);
+    }
+
+    /**
+     * Restart the countdown for the current piece
+     * @param now the time the countdown starts from
+     */
+    private void startLoop(long now) {
+        loopLength = getTimerDelay() * 1_000_000L;
+        deadline = now + loopLength;
+        if(paused) {
+            //A countdown started while paused does not begin until the game is resumed
+            pausedAt = now;
+        }
+        fire(EngineEvent.LOOP_STARTED);
+    }
+
+    /**
+     * Calculates the timer duration at the current level
+     * @return Timer delay in milliseconds
+     */
+    public int getTimerDelay() {
+        return rules.getTimerDelay(level);
+    }
+
+    /**
+     * Pass an event to the listener
+     * @param event the event
+     */
+    private void fire(EngineEvent event) {
+        if(engineListener != null) {
+            engineListener.engineEvent(event);
+        }
+    }
+
+    /**
+     * Get the size of a snapshot of this game
+     * @return size in bytes
+     */
+    public int getSnapshotSize() {
+        return SNAPSHOT_HEADER + (cols * rows + 1) / 2 + SNAPSHOT_STATE;
+    }
+
+    /**
+     * Take a snapshot of the state of this game
+     * @return the snapshot
+     */
+    public byte[] snapshot() {
+        byte[] snapshot = new byte[getSnapshotSize()];
+        snapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Take a snapshot of the state of this game into an existing buffer, so snapshots can be reused
+     *
+     * The board is stored as one nibble per block, followed by the stats, the current and following pieces, the seed
+     * and position of the piece source and the time left on the countdown. Pieces are stored as an unsigned byte, with
+     * 255 meaning no piece has been dealt yet.
+     * @param snapshot buffer of at least getSnapshotSize bytes
+     * @throws IllegalStateException if a block value or piece number is too large to snapshot
+     */
+    public void snapshot(byte[] snapshot) {
+        if(currentPiece >= NO_PIECE || followingPiece >= NO_PIECE) {
+            throw new IllegalStateException("Piece number too large to snapshot: " + Math.max(currentPiece, followingPiece));
+        }
+
+        var buffer = ByteBuffer.wrap(snapshot);
+        buffer.put((byte) SNAPSHOT_VERSION);
+        buffer.put((byte) cols);
+        buffer.put((byte) rows);
+
+        int packed = 0;
+        for(int i = 0; i < cols * rows; i++) {
+            int value = board.get(i % cols, i / cols);
+            if(value > 15) {
+                throw new IllegalStateException("Block value too large to snapshot: " + value);
+            }
+            if((i & 1) == 0) {
+                packed = value;
+            } else {
+                buffer.put((byte) (packed | value << 4));
+            }
+        }
+        if((cols * rows & 1) == 1) {
+            buffer.put((byte) packed);
+        }
+
+        buffer.putInt(score);
+        buffer.putShort((short) level);
+        buffer.put((byte) lives);
+        buffer.putShort((short) multiplier);
+        buffer.put((byte) (currentPiece < 0 ? NO_PIECE : currentPiece));
+        buffer.put((byte) (followingPiece < 0 ? NO_PIECE : followingPiece));
+        buffer.put((byte) (currentRotation << 2 | followingRotation));
+        buffer.put((byte) ((started ? 1 : 0) | (gameOver ? 2 : 0)));
+        buffer.putLong(pieces.getSeed());
+        buffer.putInt((int) pieces.getPosition());
+        buffer.putInt((int) (getTimeRemaining() / 1_000_000));
+    }
+
+    /**
+     * Restore the state of this game from a snapshot. The snapshot must be of a game of the same size, dealing from a
+     * piece source with the same seed. The countdown restarts with the time that was left when the snapshot was taken.
+     * @param snapshot the snapshot
+     * @throws IllegalArgumentException if the snapshot is not of a game like this one
+     */
+    public void restore(byte[] snapshot) {
+        var buffer = ByteBuffer.wrap(snapshot);
+        if(buffer.get() != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("Unknown snapshot version");
+        }
+        if(buffer.get() != cols || buffer.get() != rows) {
+            throw new IllegalArgumentException("Snapshot is of a different board size");
+        }
+
+        int packed = 0;
+        for(int i = 0; i < cols * rows; i++) {
+            if((i & 1) == 0) {
+                packed = buffer.get();
+            }
+            int value = (packed >> ((i & 1) * 4)) & 0xf;
+            int x = i % cols;
+            int y = i / cols;
+            if(board.get(x, y) != value) {
+                board.set(x, y, value);
+            }
+        }
+
+        score = buffer.getInt();
+        level = buffer.getShort();
+        lives = buffer.get();
+        multiplier = buffer.getShort();
+        currentPiece = buffer.get() & 0xff;
+        followingPiece = buffer.get() & 0xff;
+        if(currentPiece == NO_PIECE) {
+            currentPiece = -1;
+        }
+        if(followingPiece == NO_PIECE) {
+            followingPiece = -1;
+        }
+        int rotations = buffer.get();
+        currentRotation = rotations >> 2 & 3;
+        followingRotation = rotations & 3;
+        int flags = buffer.get();
+        started = (flags & 1) != 0;
+        gameOver = (flags & 2) != 0;
+
+        long seed = buffer.getLong();
+        if(seed != pieces.getSeed()) {
+            throw new IllegalArgumentException("Snapshot is from a different seed");
+        }
+        pieces.seek(buffer.getInt());
+
+        long now = timeSource.getAsLong();
+        loopLength = getTimerDelay() * 1_000_000L;
+        deadline = now + buffer.getInt() * 1_000_000L;
+        if(paused) {
+            pausedAt = now;
+        }
+
+        fire(EngineEvent.STATS_CHANGED);
+        if(started && !gameOver) {
+            fire(EngineEvent.NEXT_PIECE);
+            fire(EngineEvent.LOOP_STARTED);
+        }
+    }
+
+    /**
+     * Read the number of columns of the game a snapshot was taken of
+     * @param snapshot the snapshot
+     * @return number of columns
+     */
+    public static int snapshotCols(byte[] snapshot) {
+        return snapshot[1] & 0xff;
+    }
+
+    /**
+     * Read the number of rows of the game a snapshot was taken of
+     * @param snapshot the snapshot
+     * @return number of rows
+     */
+    public static int snapshotRows(byte[] snapshot) {
+        return snapshot[2] & 0xff;
+    }
+
+    /**
+     * Read the seed of the pieces dealt in the game a snapshot was taken of
+     * @param snapshot the snapshot
+     * @return the seed
+     */
+    public static long snapshotSeed(byte[] snapshot) {
+        int cols = snapshotCols(snapshot);
+        int rows = snapshotRows(snapshot);
+        return ByteBuffer.wrap(snapshot).getLong(SNAPSHOT_HEADER + (cols * rows + 1) / 2 + 13);
+    }
+
+    /**
+     * Get the board pieces are played on
+     * @return the board
+     */
+    public Bitboard getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the shapes pieces are dealt from
+     * @return the catalogue
+     */
+    public PieceCatalogue getCatalogue() {
+        return catalogue;
+    }
+
+    /**
+     * Get the rules this game is played by
+     * @return rules
+     */
+    public GameRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Get the placement table for the board
+     * @return the placement table
+     */
+    public PlacementTable getPlacementTable() {
+        return placementTable;
+    }
+
+    /**
+     * Get the lines cleared by the last piece played
+     * @return the lines cleared
+     */
+    public LineClear getLinesCleared() {
+        return linesCleared;
+    }
+
+    /**
+     * Get the number of columns in this game
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows in this game
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the piece number of the current piece
+     * @return piece number, or -1 before the game has started
+     */
+    public int getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * Get the rotation of the current piece
+     * @return rotation, from 0 to 3
+     */
+    public int getCurrentRotation() {
+        return currentRotation;
+    }
+
+    /**
+     * Get the shape index of the current piece in its current rotation
+     * @return shape index
+     */
+    public int getCurrentShape() {
+        return currentPiece * 4 + currentRotation;
+    }
+
+    /**
+     * Get the piece number of the following piece
+     * @return piece number, or -1 before the game has started
+     */
+    public int getFollowingPiece() {
+        return followingPiece;
+    }
+
+    /**
+     * Get the rotation of the following piece
+     * @return rotation, from 0 to 3
+     */
+    public int getFollowingRotation() {
+        return followingRotation;
+    }
+
+    /**
+     * Get the player's score
+     * @return score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the player's level
+     * @return level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the player's lives
+     * @return lives
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Get the player's multiplier
+     * @return multiplier
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Get the time, in nanoseconds, at which the current piece runs out of time
+     * @return deadline
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Check whether the game has started
+     * @return true once start has been called
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Check whether the player has run out of lives
+     * @return true if the game is over
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+}
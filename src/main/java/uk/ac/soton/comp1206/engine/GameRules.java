@@ -0,0 +1,193 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * Game Rules decide how hard a game is: the lives a player starts with, how points are scored, how many points make
+ * a level, and how long the countdown for each piece lasts at each level. In an endless game no lives are lost, so the
+ * game goes on until the player stops. Rules are immutable, so one set can be shared by any number of games.
+ */
+public class GameRules {
+
+    /**
+     * The rules of a standard TetrECS game
+     */
+    public static final GameRules STANDARD = new GameRules(3, 10, 1000, 12000, 500, 2500);
+
+    /**
+     * The standard rules, except that running out of time never costs a life
+     */
+    public static final GameRules ENDLESS = new GameRules(3, 10, 1000, 12000, 500, 2500, true);
+
+    /**
+     * Lives a player starts with
+     */
+    private final int lives;
+
+    /**
+     * Points for each block cleared in each line, before the multiplier
+     */
+    private final int blockPoints;
+
+    /**
+     * Points needed to go up each level
+     */
+    private final int levelPoints;
+
+    /**
+     * Countdown at level 0, in milliseconds
+     */
+    private final int initialDelay;
+
+    /**
+     * Reduction of the countdown at each level, in milliseconds
+     */
+    private final int delayStep;
+
+    /**
+     * Shortest the countdown can be, in milliseconds
+     */
+    private final int minimumDelay;
+
+    /**
+     * Whether running out of time never costs a life
+     */
+    private final boolean endless;
+
+    /**
+     * Create a new set of rules where running out of time costs a life
+     * @param lives lives a player starts with
+     * @param blockPoints points for each block cleared in each line, before the multiplier
+     * @param levelPoints points needed to go up each level
+     * @param initialDelay countdown at level 0, in milliseconds
+     * @param delayStep reduction of the countdown at each level, in milliseconds
+     * @param minimumDelay shortest the countdown can be, in milliseconds
+     */
+    public GameRules(int lives, int blockPoints, int levelPoints, int initialDelay, int delayStep, int minimumDelay) {
+        this(lives, blockPoints, levelPoints, initialDelay, delayStep, minimumDelay, false);
+    }
+
+    /**
+     * Create a new set of rules
+     * @param lives lives a player starts with
+     * @param blockPoints points for each block cleared in each line, before the multiplier
+     * @param levelPoints points needed to go up each level
+     * @param initialDelay countdown at level 0, in milliseconds
+     * @param delayStep reduction of the countdown at each level, in milliseconds
+     * @param minimumDelay shortest the countdown can be, in milliseconds
+     * @param endless whether running out of time never costs a life
+     */
+    public GameRules(int lives, int blockPoints, int levelPoints, int initialDelay, int delayStep, int minimumDelay,
+                     boolean endless) {
+        if(lives < 0 || lives > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Lives must be between 0 and " + Byte.MAX_VALUE);
+        }
+        if(levelPoints < 1) {
+            throw new IllegalArgumentException("Points per level must be at least 1");
+        }
+        if(minimumDelay < 1 || initialDelay < minimumDelay) {
+            throw new IllegalArgumentException("Countdown must be at least 1ms and start no shorter than its minimum");
+        }
+        this.lives = lives;
+        this.blockPoints = blockPoints;
+        this.levelPoints = levelPoints;
+        this.initialDelay = initialDelay;
+        this.delayStep = delayStep;
+        this.minimumDelay = minimumDelay;
+        this.endless = endless;
+    }
+
+    /**
+     * Calculates the score from a single move
+     * @param lines lines cleared
+     * @param blocks blocks cleared
+     * @param multiplier the multiplier at the time of the move
+     * @return the score to add
+     */
+    public int score(int lines, int blocks, int multiplier) {
+        return lines * blocks * blockPoints * multiplier;
+    }
+
+    /**
+     * Calculates the level reached with a score
+     * @param score the score
+     * @return the level
+     */
+    public int getLevel(int score) {
+        return score / levelPoints;
+    }
+
+    /**
+     * Calculates the countdown for each piece at a level
+     * @param level the level
+     * @return countdown in milliseconds
+     */
+    public int getTimerDelay(int level) {
+        return (int) Math.max((long) initialDelay - (long) delayStep * level, minimumDelay);
+    }
+
+    /**
+     * Get the lives a player starts with
+     * @return lives
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Get the points for each block cleared in each line, before the multiplier
+     * @return points
+     */
+    public int getBlockPoints() {
+        return blockPoints;
+    }
+
+    /**
+     * Get the points needed to go up each level
+     * @return points
+     */
+    public int getLevelPoints() {
+        return levelPoints;
+    }
+
+    /**
+     * Get the countdown at level 0
+     * @return countdown in milliseconds
+     */
+    public int getInitialDelay() {
+        return initialDelay;
+    }
+
+    /**
+     * Get the reduction of the countdown at each level
+     * @return reduction in milliseconds
+     */
+    public int getDelayStep() {
+        return delayStep;
+    }
+
+    /**
+     * Get the shortest the countdown can be
+     * @return countdown in milliseconds
+     */
+    public int getMinimumDelay() {
+        return minimumDelay;
+    }
+
+    /**
+     * Check whether running out of time never costs a life
+     * @return true if the game never ends
+     */
+    public boolean isEndless() {
+        return endless;
+    }
+
+    /**
+     * Return the string representation of these rules
+     * @return the rules
+     */
+    public String toString() {
+        return lives + " lives, " + blockPoints + " points per block, " + levelPoints + " points per level, "
+                + initialDelay + "ms countdown less " + delayStep + "ms per level down to " + minimumDelay + "ms"
+                + (endless ? ", endless" : "");
+    }
+
+}
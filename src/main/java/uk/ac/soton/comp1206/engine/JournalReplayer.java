@@ -0,0 +1,86 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.function.LongFunction;
+
+/**
+ * The Journal Replayer plays the actions in a move journal through a new game engine, without any UI or listener, to
+ * reproduce the game the journal was recorded from. The engine plays under the rules recorded in the journal.
+ *
+ * The engine is given a time source which never moves on, so pieces only run out of time where the journal says they
+ * did.
+ */
+public class JournalReplayer {
+
+    /**
+     * The shapes pieces are dealt from
+     */
+    private final PieceCatalogue catalogue;
+
+    /**
+     * Creates the piece source for a journal's seed, or null to deal pieces the way the journal records
+     */
+    private final LongFunction<PieceSource> sources;
+
+    /**
+     * Create a new replayer for games dealing from the standard catalogue, at random or from a bag as each journal
+     * records
+     */
+    public JournalReplayer() {
+        this(PieceCatalogue.STANDARD, null);
+    }
+
+    /**
+     * Create a new replayer for games dealing from the given catalogue
+     * @param catalogue the shapes pieces are dealt from
+     * @param sources creates the piece source the game used from its seed, or null to deal pieces the way each
+     *                journal records
+     */
+    public JournalReplayer(PieceCatalogue catalogue, LongFunction<PieceSource> sources) {
+        this.catalogue = catalogue;
+        this.sources = sources;
+    }
+
+    /**
+     * Play every action in the journal
+     * @param journal the journal
+     * @return the engine, in the state the game ended in
+     */
+    public GameEngine replay(MoveJournal journal) {
+        return replay(journal, journal.size());
+    }
+
+    /**
+     * Play the first actions in the journal
+     * @param journal the journal
+     * @param moves the number of actions to play
+     * @return the engine, in the state the game was in after those actions
+     * @throws IllegalStateException if an action could not be played, meaning the journal does not match this game
+     */
+    public GameEngine replay(MoveJournal journal, int moves) {
+        PieceSource pieces = sources != null
+                ? sources.apply(journal.getSeed())
+                : journal.createPieceSource(catalogue.size());
+        var engine = new GameEngine(journal.getCols(), journal.getRows(), catalogue, pieces, journal.getRules());
+        engine.setTimeSource(() -> 0L);
+        engine.start();
+
+        byte[] data = journal.data;
+        int position = 0;
+        for(int move = 0; move < moves; move++) {
+            int op = data[position++] & 0xff;
+            switch(op & MoveJournal.KIND) {
+                case MoveJournal.PLACE -> {
+                    int y = data[position++];
+                    if(!engine.place(op, y)) {
+                        throw new IllegalStateException("Move " + move + " could not be played at " + op + "," + y);
+                    }
+                }
+                case MoveJournal.ROTATE -> engine.rotateCurrentPiece(op & 3);
+                case MoveJournal.SWAP -> engine.swapCurrentPiece();
+                default -> engine.timeout();
+            }
+        }
+        return engine;
+    }
+
+}
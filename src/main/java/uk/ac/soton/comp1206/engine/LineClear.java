@@ -0,0 +1,107 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A Line Clear records the rows and columns cleared from a Bitboard after a piece has been played, and how many blocks
+ * were cleared in total. Rows and columns are held as bitmasks, so one instance can be reused for every placement.
+ */
+public class LineClear {
+
+    /**
+     * The cleared rows, with bit y set when row y was cleared
+     */
+    private long rows;
+
+    /**
+     * The cleared columns, with bit x set when column x was cleared
+     */
+    private long cols;
+
+    /**
+     * The number of blocks cleared
+     */
+    private int blocks;
+
+    /**
+     * Reset this line clear so nothing is cleared
+     */
+    void reset() {
+        rows = 0;
+        cols = 0;
+        blocks = 0;
+    }
+
+    /**
+     * Mark a row as cleared
+     * @param y row
+     */
+    void addRow(int y) {
+        rows |= 1L << y;
+    }
+
+    /**
+     * Mark a column as cleared
+     * @param x column
+     */
+    void addColumn(int x) {
+        cols |= 1L << x;
+    }
+
+    /**
+     * Set the number of blocks cleared
+     * @param blocks number of blocks
+     */
+    void setBlocks(int blocks) {
+        this.blocks = blocks;
+    }
+
+    /**
+     * Get the cleared rows
+     * @return bitmask with bit y set when row y was cleared
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the cleared columns
+     * @return bitmask with bit x set when column x was cleared
+     */
+    public long getColumns() {
+        return cols;
+    }
+
+    /**
+     * Get the number of lines (rows and columns) cleared
+     * @return number of lines
+     */
+    public int getLines() {
+        return Long.bitCount(rows) + Long.bitCount(cols);
+    }
+
+    /**
+     * Get the number of blocks cleared
+     * @return number of blocks
+     */
+    public int getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Check whether the block at the given column and row was cleared
+     * @param x column
+     * @param y row
+     * @return true if the block was in a cleared row or column
+     */
+    public boolean isCleared(int x, int y) {
+        return (rows & (1L << y)) != 0 || (cols & (1L << x)) != 0;
+    }
+
+    /**
+     * Check whether nothing was cleared
+     * @return true if no lines were cleared
+     */
+    public boolean isEmpty() {
+        return rows == 0 && cols == 0;
+    }
+
+}
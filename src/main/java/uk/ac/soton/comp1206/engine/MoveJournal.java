@@ -0,0 +1,357 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The Move Journal records everything needed to play a game again: the board size, the rules, the seed of the pieces
+ * dealt and whether they were dealt at random or from a bag, and every action which changed the game, in the order
+ * they happened.
+ *
+ * Each action is one byte, with the top two bits giving the kind of action:
+ * 00 place, with the column in the low six bits followed by a byte holding the row;
+ * 01 rotate, with the number of quarter turns in the low two bits;
+ * 10 swap;
+ * 11 the current piece running out of time.
+ */
+public class MoveJournal {
+
+    /**
+     * Marks the start of a saved journal of a game played under the standard rules
+     */
+    private static final int MAGIC = 0x54524a31;
+
+    /**
+     * Marks the start of a saved journal which records the rules it was played under
+     */
+    private static final int MAGIC_RULES = 0x54524a32;
+
+    /**
+     * Marks the start of a saved journal which records the rules and how pieces were dealt
+     */
+    private static final int MAGIC_SOURCE = 0x54524a33;
+
+    /**
+     * The most bytes of actions a saved journal may hold, so a corrupt length cannot make reading allocate without limit
+     */
+    static final int MAX_LENGTH = 1 << 26;
+
+    static final int PLACE = 0x00;
+    static final int ROTATE = 0x40;
+    static final int SWAP = 0x80;
+    static final int TIMEOUT = 0xc0;
+
+    /**
+     * Mask of the bits giving the kind of action
+     */
+    static final int KIND = 0xc0;
+
+    /**
+     * Number of columns of the board the game was played on
+     */
+    private final int cols;
+
+    /**
+     * Number of rows of the board the game was played on
+     */
+    private final int rows;
+
+    /**
+     * Seed of the pieces dealt
+     */
+    private final long seed;
+
+    /**
+     * The rules the game was played under
+     */
+    private final GameRules rules;
+
+    /**
+     * Whether pieces were dealt from a shuffled bag, rather than at random
+     */
+    private final boolean bag;
+
+    /**
+     * The encoded actions. Only the first length bytes are in use.
+     */
+    byte[] data;
+
+    /**
+     * Number of bytes of data in use
+     */
+    int length;
+
+    /**
+     * Number of actions recorded
+     */
+    private int moves;
+
+    /**
+     * Create a new, empty journal of a game played under the standard rules
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed of the pieces dealt
+     */
+    public MoveJournal(int cols, int rows, long seed) {
+        this(cols, rows, seed, GameRules.STANDARD);
+    }
+
+    /**
+     * Create a new, empty journal of a game dealing random pieces
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed of the pieces dealt
+     * @param rules the rules the game is played under
+     */
+    public MoveJournal(int cols, int rows, long seed, GameRules rules) {
+        this(cols, rows, seed, rules, false);
+    }
+
+    /**
+     * Create a new, empty journal
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed of the pieces dealt
+     * @param rules the rules the game is played under
+     * @param bag whether pieces are dealt from a shuffled bag
+     */
+    public MoveJournal(int cols, int rows, long seed, GameRules rules, boolean bag) {
+        this(cols, rows, seed, rules, bag, new byte[64], 0, 0);
+    }
+
+    /**
+     * Create a journal holding already encoded actions
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed of the pieces dealt
+     * @param rules the rules the game was played under
+     * @param bag whether pieces were dealt from a shuffled bag
+     * @param data encoded actions
+     * @param length number of bytes in use
+     * @param moves number of actions
+     */
+    private MoveJournal(int cols, int rows, long seed, GameRules rules, boolean bag, byte[] data, int length,
+                        int moves) {
+        if(cols > Bitboard.MAX_SIZE || rows > Bitboard.MAX_SIZE) {
+            throw new IllegalArgumentException("Board too large to journal: " + cols + "x" + rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.seed = seed;
+        this.rules = rules;
+        this.bag = bag;
+        this.data = data;
+        this.length = length;
+        this.moves = moves;
+    }
+
+    /**
+     * Record a piece played centred on the given block
+     * @param x column
+     * @param y row
+     */
+    public void recordPlace(int x, int y) {
+        ensureCapacity(2);
+        data[length++] = (byte) (PLACE | x);
+        data[length++] = (byte) y;
+        moves++;
+    }
+
+    /**
+     * Record the current piece being rotated
+     * @param rotations number of quarter turns
+     */
+    public void recordRotate(int rotations) {
+        record(ROTATE | (rotations & 3));
+    }
+
+    /**
+     * Record the current and following pieces being swapped
+     */
+    public void recordSwap() {
+        record(SWAP);
+    }
+
+    /**
+     * Record the current piece running out of time
+     */
+    public void recordTimeout() {
+        record(TIMEOUT);
+    }
+
+    /**
+     * Record a single byte action
+     * @param op the action
+     */
+    private void record(int op) {
+        ensureCapacity(1);
+        data[length++] = (byte) op;
+        moves++;
+    }
+
+    /**
+     * Make room for the given number of bytes
+     * @param bytes bytes needed
+     */
+    private void ensureCapacity(int bytes) {
+        if(length + bytes > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes));
+        }
+    }
+
+    /**
+     * Remove every action
+     */
+    public void clear() {
+        length = 0;
+        moves = 0;
+    }
+
+    /**
+     * Get the number of columns of the board the game was played on
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the board the game was played on
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the seed of the pieces dealt
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the rules the game was played under
+     * @return the rules
+     */
+    public GameRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Check whether pieces were dealt from a shuffled bag, rather than at random
+     * @return true if pieces were dealt from a bag
+     */
+    public boolean isBag() {
+        return bag;
+    }
+
+    /**
+     * Create a piece source which deals the same pieces as the game did, if it dealt from this journal's catalogue
+     * @param pieces the number of pieces in the catalogue
+     * @return the piece source
+     */
+    public PieceSource createPieceSource(int pieces) {
+        return bag ? new BagPieceSource(seed, pieces) : new RandomPieceSource(seed, pieces);
+    }
+
+    /**
+     * Get the number of actions recorded
+     * @return number of actions
+     */
+    public int size() {
+        return moves;
+    }
+
+    /**
+     * Write this journal to a stream
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        var data = new DataOutputStream(out);
+        data.writeInt(MAGIC_SOURCE);
+        data.writeByte(cols);
+        data.writeByte(rows);
+        data.writeLong(seed);
+        data.writeByte(rules.getLives());
+        data.writeInt(rules.getBlockPoints());
+        data.writeInt(rules.getLevelPoints());
+        data.writeInt(rules.getInitialDelay());
+        data.writeInt(rules.getDelayStep());
+        data.writeInt(rules.getMinimumDelay());
+        data.writeBoolean(rules.isEndless());
+        data.writeBoolean(bag);
+        data.writeInt(moves);
+        data.writeInt(length);
+        data.write(this.data, 0, length);
+        data.flush();
+    }
+
+    /**
+     * Read a journal written by write. Journals saved before the rules were recorded are read as standard games, and
+     * journals saved before the piece source was recorded are read as dealing random pieces.
+     * @param in the stream to read from
+     * @return the journal
+     * @throws IOException if the stream cannot be read or does not hold a journal
+     */
+    public static MoveJournal read(InputStream in) throws IOException {
+        var data = new DataInputStream(in);
+        int magic = data.readInt();
+        if(magic != MAGIC && magic != MAGIC_RULES && magic != MAGIC_SOURCE) {
+            throw new IOException("Not a move journal");
+        }
+        int cols = data.readUnsignedByte();
+        int rows = data.readUnsignedByte();
+        long seed = data.readLong();
+        if(cols < 1 || rows < 1 || cols > Bitboard.MAX_SIZE || rows > Bitboard.MAX_SIZE) {
+            throw new IOException("Corrupt move journal board size: " + cols + "x" + rows);
+        }
+
+        GameRules rules = GameRules.STANDARD;
+        if(magic != MAGIC) {
+            try {
+                rules = new GameRules(data.readUnsignedByte(), data.readInt(), data.readInt(), data.readInt(),
+                        data.readInt(), data.readInt(), data.readBoolean());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt move journal rules", e);
+            }
+        }
+        boolean bag = magic == MAGIC_SOURCE && data.readBoolean();
+
+        int moves = data.readInt();
+        int length = data.readInt();
+        if(moves < 0 || length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Corrupt move journal");
+        }
+
+        byte[] ops = new byte[length];
+        data.readFully(ops);
+        if(countActions(ops, length) != moves) {
+            throw new IOException("Corrupt move journal actions");
+        }
+        return new MoveJournal(cols, rows, seed, rules, bag, ops, length, moves);
+    }
+
+    /**
+     * Count the actions in encoded data
+     * @param data encoded actions
+     * @param length number of bytes in use
+     * @return number of actions, or -1 if the last action is cut short
+     */
+    private static int countActions(byte[] data, int length) {
+        int actions = 0;
+        int position = 0;
+        while(position < length) {
+            position += (data[position] & KIND) == PLACE ? 2 : 1;
+            actions++;
+        }
+        return position == length ? actions : -1;
+    }
+
+}
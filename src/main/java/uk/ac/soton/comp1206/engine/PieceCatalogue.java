@@ -0,0 +1,270 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Piece Catalogue is the shared, immutable set of piece shapes a game deals from. Shapes are looked up by their
+ * piece number, and a shape in a given rotation is identified by its shape index, piece * 4 + rotation.
+ *
+ * Catalogues are loaded from piece files. Each piece starts with a line giving its value and name, followed by the rows
+ * of the square it is drawn in, where X is a block and . is empty; lines starting with # are comments. Every rotation of
+ * every shape is compiled into row masks when the catalogue is loaded, so new piece sets need no code changes.
+ *
+ * The catalogue also builds and caches the placement table for each board size it is played on.
+ */
+public class PieceCatalogue {
+
+    /**
+     * The largest shape a catalogue file may describe
+     */
+    public static final int MAX_SHAPE_SIZE = 5;
+
+    /**
+     * The largest value a piece may have, as blocks are saved in four bits when a game is snapshot
+     */
+    public static final int MAX_VALUE = 15;
+
+    /**
+     * The standard set of 15 TetrECS pieces
+     */
+    public static final PieceCatalogue STANDARD = loadResource("/pieces/standard.pieces");
+
+    /**
+     * The shapes in this catalogue, indexed by piece number
+     */
+    private final PieceShape[] shapes;
+
+    /**
+     * The width and height of the largest shape in this catalogue
+     */
+    private final int size;
+
+    /**
+     * The row masks of every shape in every rotation, indexed by shape index, padded to the largest shape size
+     */
+    private final int[][] shapeMasks;
+
+    /**
+     * The placement table of each board size this catalogue has been played on
+     */
+    private final Map<Integer, PlacementTable> placementTables = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new catalogue of the given shapes
+     * @param shapes the shapes, where the shape at index i has piece number i
+     */
+    public PieceCatalogue(PieceShape[] shapes) {
+        this.shapes = shapes.clone();
+
+        int largest = 0;
+        for(PieceShape shape : shapes) {
+            largest = Math.max(largest, shape.getSize());
+        }
+        this.size = largest;
+
+        //Smaller shapes are padded so they stay centred within the largest size
+        shapeMasks = new int[shapes.length * 4][size];
+        for(PieceShape shape : shapes) {
+            int offset = (size - shape.getSize()) / 2;
+            for(int rotation = 0; rotation < 4; rotation++) {
+                int[] masks = shape.getMasks(rotation);
+                for(int y = 0; y < masks.length; y++) {
+                    shapeMasks[shape.getId() * 4 + rotation][y + offset] = masks[y] << offset;
+                }
+            }
+        }
+    }
+
+    /**
+     * Load a catalogue from a piece file
+     * @param path the file
+     * @return the catalogue
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file does not describe a valid set of pieces
+     */
+    public static PieceCatalogue load(Path path) throws IOException {
+        try(Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader, path.toString());
+        }
+    }
+
+    /**
+     * Load a catalogue from a piece file bundled with the game
+     * @param name name of the resource
+     * @return the catalogue
+     * @throws IllegalArgumentException if the resource does not describe a valid set of pieces
+     */
+    public static PieceCatalogue loadResource(String name) {
+        InputStream in = PieceCatalogue.class.getResourceAsStream(name);
+        if(in == null) {
+            throw new IllegalArgumentException("No such piece file: " + name);
+        }
+        try(Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(reader, name);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read piece file " + name, e);
+        }
+    }
+
+    /**
+     * Load a catalogue from the contents of a piece file
+     * @param reader the contents
+     * @param source where the contents came from, to report errors against
+     * @return the catalogue
+     * @throws IOException if the contents cannot be read
+     * @throws IllegalArgumentException if the contents do not describe a valid set of pieces
+     */
+    public static PieceCatalogue load(Reader reader, String source) throws IOException {
+        var lines = new BufferedReader(reader);
+        List<PieceShape> shapes = new ArrayList<>();
+
+        String name = null;
+        int value = 0;
+        int start = 0;
+        List<String> rows = new ArrayList<>();
+        int number = 0;
+        String line;
+        do {
+            line = lines.readLine();
+            number++;
+            String text = line == null ? "" : line.strip();
+            if(text.startsWith("#")) {
+                continue;
+            }
+
+            if(!text.isEmpty() && name == null) {
+                //The line starting a new piece: its value then its name
+                String[] header = text.split("\\s+", 2);
+                try {
+                    value = Integer.parseInt(header[0]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(source + ":" + number + ": expected a piece value, not " + header[0]);
+                }
+                if(value < 1 || value > MAX_VALUE || header.length < 2) {
+                    throw new IllegalArgumentException(source + ":" + number + ": expected a value from 1 to " + MAX_VALUE
+                            + " and a name");
+                }
+                name = header[1];
+                start = number;
+            } else if(!text.isEmpty()) {
+                rows.add(text);
+            } else if(name != null) {
+                //A blank line or the end of the file finishes the piece
+                shapes.add(compile(shapes.size(), name, value, rows, source + ":" + start));
+                name = null;
+                rows.clear();
+            }
+        } while(line != null);
+
+        if(shapes.isEmpty()) {
+            throw new IllegalArgumentException(source + ": no pieces");
+        }
+        return new PieceCatalogue(shapes.toArray(new PieceShape[0]));
+    }
+
+    /**
+     * Turn the rows of a piece in a piece file into a shape
+     * @param id piece number
+     * @param name name of the piece
+     * @param value value of the piece
+     * @param rows the rows of the square the piece is drawn in
+     * @param where where the piece was read from, to report errors against
+     * @return the shape
+     * @throws IllegalArgumentException if the rows are not a square of X and . up to MAX_SHAPE_SIZE
+     */
+    private static PieceShape compile(int id, String name, int value, List<String> rows, String where) {
+        int size = rows.size();
+        if(size == 0 || size > MAX_SHAPE_SIZE) {
+            throw new IllegalArgumentException(where + ": " + name + " must have 1 to " + MAX_SHAPE_SIZE + " rows");
+        }
+
+        int[][] blocks = new int[size][size];
+        boolean any = false;
+        for(int y = 0; y < size; y++) {
+            String row = rows.get(y);
+            if(row.length() != size) {
+                throw new IllegalArgumentException(where + ": " + name + " is not square");
+            }
+            for(int x = 0; x < size; x++) {
+                char c = row.charAt(x);
+                if(c != 'X' && c != '.') {
+                    throw new IllegalArgumentException(where + ": " + name + " has '" + c + "', expected X or .");
+                }
+                blocks[y][x] = c == 'X' ? 1 : 0;
+                any |= c == 'X';
+            }
+        }
+        if(!any) {
+            throw new IllegalArgumentException(where + ": " + name + " has no blocks");
+        }
+        return new PieceShape(id, name, blocks, value);
+    }
+
+    /**
+     * Get the shape with the given piece number
+     * @param piece piece number
+     * @return the shape
+     */
+    public PieceShape get(int piece) {
+        if(piece < 0 || piece >= shapes.length) {
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        return shapes[piece];
+    }
+
+    /**
+     * Get the number of shapes in this catalogue
+     * @return number of shapes
+     */
+    public int size() {
+        return shapes.length;
+    }
+
+    /**
+     * Get the width and height of the largest shape in this catalogue
+     * @return shape size
+     */
+    public int getShapeSize() {
+        return size;
+    }
+
+    /**
+     * Get a fingerprint of the shapes in this catalogue, in every rotation and in order, so tables built for one
+     * catalogue are not used with another
+     * @return the fingerprint
+     */
+    public long getFingerprint() {
+        long hash = Zobrist.mix(size);
+        for(int[] masks : shapeMasks) {
+            for(int mask : masks) {
+                hash = Zobrist.mix(hash ^ mask);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Get the placement table for this catalogue on a board of the given size, building it the first time that size
+     * is used
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the placement table
+     */
+    public PlacementTable getPlacementTable(int cols, int rows) {
+        return placementTables.computeIfAbsent(cols * (Bitboard.MAX_SIZE + 1) + rows,
+                key -> new PlacementTable(cols, rows, shapeMasks, size));
+    }
+
+}
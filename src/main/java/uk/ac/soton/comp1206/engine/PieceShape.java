@@ -0,0 +1,172 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Arrays;
+
+/**
+ * A Piece Shape is the immutable description of one kind of piece: its name, value and block makeup in all four
+ * rotations. Every rotation is worked out once when the shape is created, both as a 2D grid for display and as a
+ * bitmask per row for placement checks, so rotating a piece never needs to allocate.
+ */
+public class PieceShape {
+
+    /**
+     * The piece number of this shape within its catalogue
+     */
+    private final int id;
+
+    /**
+     * The name of this shape
+     */
+    private final String name;
+
+    /**
+     * The value of this shape, used to fill the blocks it is played on
+     */
+    private final int value;
+
+    /**
+     * The width and height of the square this shape is described in
+     */
+    private final int size;
+
+    /**
+     * The block makeup in each rotation, indexed by rotation, row and then column
+     */
+    private final int[][][] blocks;
+
+    /**
+     * The row masks in each rotation, with bit x of a row set when column x is a block
+     */
+    private final int[][] masks;
+
+    /**
+     * The rotations which give different shapes, so a symmetric shape is only tried once in each distinct rotation
+     */
+    private final int[] distinctRotations;
+
+    /**
+     * Create a new shape from its block makeup in its first rotation
+     * @param id piece number
+     * @param name name of the shape
+     * @param blocks block makeup, indexed by row and then column, with any non-zero entry being a block
+     * @param value the value of this shape
+     */
+    public PieceShape(int id, String name, int[][] blocks, int value) {
+        this.id = id;
+        this.name = name;
+        this.value = value;
+        this.size = blocks.length;
+
+        this.blocks = new int[4][size][size];
+        this.masks = new int[4][size];
+
+        //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
+        for(int y = 0; y < size; y++) {
+            if(blocks[y].length != size) {
+                throw new IllegalArgumentException("Shape " + name + " is not square");
+            }
+            for(int x = 0; x < size; x++) {
+                this.blocks[0][y][x] = blocks[y][x] == 0 ? 0 : value;
+            }
+        }
+
+        //Each rotation turns the previous one a quarter turn anticlockwise
+        for(int rotation = 1; rotation < 4; rotation++) {
+            for(int y = 0; y < size; y++) {
+                for(int x = 0; x < size; x++) {
+                    this.blocks[rotation][size - 1 - x][y] = this.blocks[rotation - 1][y][x];
+                }
+            }
+        }
+
+        for(int rotation = 0; rotation < 4; rotation++) {
+            for(int y = 0; y < size; y++) {
+                for(int x = 0; x < size; x++) {
+                    if(this.blocks[rotation][y][x] != 0) {
+                        masks[rotation][y] |= 1 << x;
+                    }
+                }
+            }
+        }
+
+        int[] distinct = new int[4];
+        int count = 0;
+        for(int rotation = 0; rotation < 4; rotation++) {
+            boolean seen = false;
+            for(int i = 0; i < count; i++) {
+                seen |= Arrays.equals(masks[distinct[i]], masks[rotation]);
+            }
+            if(!seen) {
+                distinct[count++] = rotation;
+            }
+        }
+        distinctRotations = Arrays.copyOf(distinct, count);
+    }
+
+    /**
+     * Get the piece number of this shape
+     * @return piece number
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the name of this shape
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the value of this shape
+     * @return value
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Get the width and height of the square this shape is described in
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the block makeup of this shape in the given rotation. The array is shared and must not be modified.
+     * @param rotation rotation, from 0 to 3
+     * @return 2D grid of the blocks, indexed by row and then column
+     */
+    public int[][] getBlocks(int rotation) {
+        return blocks[rotation];
+    }
+
+    /**
+     * Get the row masks of this shape in the given rotation. The array is shared and must not be modified.
+     * @param rotation rotation, from 0 to 3
+     * @return one mask per row, with bit x set when column x is a block
+     */
+    public int[] getMasks(int rotation) {
+        return masks[rotation];
+    }
+
+    /**
+     * Get the rotations of this shape which give different shapes. The array is shared and must not be modified.
+     * @return distinct rotations, from 0 to 3
+     */
+    public int[] getDistinctRotations() {
+        return distinctRotations;
+    }
+
+    /**
+     * Return the string representation of this shape
+     * @return the name of this shape
+     */
+    public String toString() {
+        return name;
+    }
+
+}
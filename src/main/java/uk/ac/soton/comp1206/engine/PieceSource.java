@@ -0,0 +1,49 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A Piece Source decides which piece is dealt next. Sources built from a seed deal the same sequence of pieces every
+ * time they are built from that seed, so a game can be reproduced from its seed.
+ */
+public interface PieceSource {
+
+    /**
+     * Get the piece number of the next piece to deal
+     * @return piece number
+     */
+    public int next();
+
+    /**
+     * Get the seed this source was built from
+     * @return the seed, or 0 if the source is not seeded
+     */
+    public default long getSeed() {
+        return 0;
+    }
+
+    /**
+     * Check whether this source deals from a shuffled bag, rather than choosing each piece at random
+     * @return true if pieces are dealt from a bag
+     */
+    public default boolean isBag() {
+        return false;
+    }
+
+    /**
+     * Get the number of pieces dealt so far
+     * @return position in the sequence of pieces
+     */
+    public default long getPosition() {
+        return 0;
+    }
+
+    /**
+     * Move to the given position in the sequence of pieces, so the next piece dealt is the one which would have been
+     * dealt after that many pieces
+     * @param position number of pieces dealt
+     * @throws UnsupportedOperationException if this source cannot repeat its sequence
+     */
+    public default void seek(long position) {
+        throw new UnsupportedOperationException("Piece source cannot seek");
+    }
+
+}
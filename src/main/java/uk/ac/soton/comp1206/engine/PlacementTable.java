@@ -0,0 +1,358 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The Placement Table holds, for one board size, the occupancy masks of every piece in every rotation at every block
+ * it can be centred on. It is built once and can then be shared by every board of that size.
+ *
+ * Placements which would put any part of a piece outside the board are marked invalid when the table is built, so
+ * checking whether a piece can be played is a bounds lookup followed by one AND per row the piece covers.
+ *
+ * Legal placements can also be found for every column of a row at once, by shifting each board row under the piece
+ * and removing the columns where it would overlap a filled block.
+ */
+public class PlacementTable {
+
+    /**
+     * The number of columns of the boards this table is for
+     */
+    private final int cols;
+
+    /**
+     * The number of rows of the boards this table is for
+     */
+    private final int rows;
+
+    /**
+     * The width and height of the square each shape is described in
+     */
+    private final int size;
+
+    /**
+     * The number of shapes (each rotation of each piece) in this table
+     */
+    private final int shapes;
+
+    /**
+     * The offset from the centre row to the first row of each shape which contains a block
+     */
+    private final int[] top;
+
+    /**
+     * The number of rows of each shape from the first to the last row which contains a block
+     */
+    private final int[] height;
+
+    /**
+     * The occupancy of each row of each shape when centred on each column, stored at ((shape * cols) + x) * size + row
+     */
+    private final long[] masks;
+
+    /**
+     * For each shape and row, the columns the shape can be centred on without leaving the board
+     */
+    private final long[] anchors;
+
+    /**
+     * The rows of each shape from its first row containing a block, unshifted, stored at shape * size + row
+     */
+    private final long[] shapeRows;
+
+    /**
+     * Create a new placement table for the given board size.
+     *
+     * Each shape is given as one int per row of its square, with bit c set when column c of that row is a block. Shapes
+     * are centred on the middle block of their square.
+     *
+     * @param cols number of columns of the board
+     * @param rows number of rows of the board
+     * @param shapeMasks the row masks of every shape
+     * @param size the width and height of the square each shape is described in
+     */
+    public PlacementTable(int cols, int rows, int[][] shapeMasks, int size) {
+        if(cols < 1 || rows < 1 || cols > Bitboard.MAX_SIZE || rows > Bitboard.MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + cols + "x" + rows);
+        }
+
+        this.cols = cols;
+        this.rows = rows;
+        this.size = size;
+        this.shapes = shapeMasks.length;
+
+        top = new int[shapes];
+        height = new int[shapes];
+        masks = new long[shapes * cols * size];
+        anchors = new long[shapes * rows];
+        shapeRows = new long[shapes * size];
+
+        int centre = size / 2;
+
+        for(int shape = 0; shape < shapes; shape++) {
+            int[] shapeRows = shapeMasks[shape];
+
+            //Find the first and last rows containing a block
+            int first = size;
+            int last = -1;
+            int left = size;
+            int right = -1;
+            for(int r = 0; r < size; r++) {
+                if(shapeRows[r] == 0) continue;
+                first = Math.min(first, r);
+                last = r;
+                left = Math.min(left, Integer.numberOfTrailingZeros(shapeRows[r]));
+                right = Math.max(right, 31 - Integer.numberOfLeadingZeros(shapeRows[r]));
+            }
+            if(last < 0) {
+                throw new IllegalArgumentException("Shape " + shape + " has no blocks");
+            }
+
+            top[shape] = first - centre;
+            height[shape] = last - first + 1;
+            for(int i = 0; i < height[shape]; i++) {
+                this.shapeRows[shape * size + i] = shapeRows[first + i];
+            }
+
+            //Columns where every block of the shape lands on the board
+            long validColumns = 0;
+            for(int x = 0; x < cols; x++) {
+                if(x - centre + left < 0 || x - centre + right >= cols) continue;
+                validColumns |= 1L << x;
+
+                int base = (shape * cols + x) * size;
+                int shift = x - centre;
+                for(int i = 0; i < height[shape]; i++) {
+                    long row = shapeRows[first + i];
+                    masks[base + i] = shift >= 0 ? row << shift : row >>> -shift;
+                }
+            }
+
+            //Rows where every block of the shape lands on the board
+            for(int y = 0; y < rows; y++) {
+                if(y + top[shape] < 0 || y + top[shape] + height[shape] > rows) continue;
+                anchors[shape * rows + y] = validColumns;
+            }
+        }
+    }
+
+    /**
+     * Get the number of columns of the boards this table is for
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the boards this table is for
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Check whether a shape centred on the given block is entirely inside the board
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     * @return true if the placement is inside the board
+     */
+    public boolean inBounds(int shape, int x, int y) {
+        if(x < 0 || y < 0 || x >= cols || y >= rows) {
+            return false;
+        }
+        return (anchors[shape * rows + y] & (1L << x)) != 0;
+    }
+
+    /**
+     * Check whether a shape can be played centred on the given block of a board
+     * @param board the board to check
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     * @return true if the shape is inside the board and does not overlap any filled block
+     */
+    public boolean canPlace(Bitboard board, int shape, int x, int y) {
+        if(!inBounds(shape, x, y)) {
+            return false;
+        }
+
+        int first = y + top[shape];
+        int base = (shape * cols + x) * size;
+        for(int i = 0; i < height[shape]; i++) {
+            if((board.getRow(first + i) & masks[base + i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find every column of a row a shape can be played centred on
+     * @param board the board to check
+     * @param shape the shape
+     * @param y row
+     * @return bitmask with bit x set when the shape can be played centred on column x of the row
+     */
+    public long legalColumns(Bitboard board, int shape, int y) {
+        return legalColumns(board.occupied, shape, y);
+    }
+
+    /**
+     * Find every column of a row a shape can be played centred on, given the occupancy of each row of a board. Used by
+     * search code which keeps boards as bare occupancy rather than a Bitboard.
+     * @param occupancy the occupied blocks of each row, one bit per column
+     * @param shape the shape
+     * @param y row
+     * @return bitmask with bit x set when the shape can be played centred on column x of the row
+     */
+    public long legalColumns(long[] occupancy, int shape, int y) {
+        if(y < 0 || y >= rows) {
+            return 0;
+        }
+        long legal = anchors[shape * rows + y];
+        if(legal == 0) {
+            return 0;
+        }
+
+        int first = y + top[shape];
+        int centre = size / 2;
+        for(int i = 0; i < height[shape]; i++) {
+            long boardRow = occupancy[first + i];
+            if(boardRow == 0) continue;
+
+            //A block dx columns from the centre overlaps the filled block at x + dx
+            long piece = shapeRows[shape * size + i];
+            while(piece != 0) {
+                int dx = Long.numberOfTrailingZeros(piece) - centre;
+                legal &= ~(dx >= 0 ? boardRow >>> dx : boardRow << -dx);
+                piece &= piece - 1;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Find every legal placement of a piece, in each of its four rotations, on a board
+     * @param board the board to check
+     * @param piece piece number
+     * @param placements filled in with one word per rotation and row, at rotation * rows + y, with bit x set when the
+     *                   piece in that rotation can be played centred on block x,y. Must hold at least 4 * rows words.
+     * @return the number of legal placements
+     */
+    public int legalPlacements(Bitboard board, int piece, long[] placements) {
+        int count = 0;
+        for(int rotation = 0; rotation < 4; rotation++) {
+            int shape = piece * 4 + rotation;
+            for(int y = 0; y < rows; y++) {
+                long legal = legalColumns(board, shape, y);
+                placements[rotation * rows + y] = legal;
+                count += Long.bitCount(legal);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check whether a piece can be played anywhere on a board in any rotation
+     * @param board the board to check
+     * @param piece piece number
+     * @return true if there is at least one legal placement
+     */
+    public boolean hasLegalPlacement(Bitboard board, int piece) {
+        for(int rotation = 0; rotation < 4; rotation++) {
+            int shape = piece * 4 + rotation;
+            for(int y = 0; y < rows; y++) {
+                if(legalColumns(board, shape, y) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the rows covered by a shape centred on the given row
+     * @param shape the shape
+     * @param y row
+     * @return bitmask with bit y set for every row the shape has a block in
+     */
+    public long rowsCovered(int shape, int y) {
+        return ((1L << height[shape]) - 1) << (y + top[shape]);
+    }
+
+    /**
+     * Get the columns covered by a shape centred on the given column
+     * @param shape the shape
+     * @param x column
+     * @return bitmask with bit x set for every column the shape has a block in
+     */
+    public long columnsCovered(int shape, int x) {
+        int base = (shape * cols + x) * size;
+        long covered = 0;
+        for(int i = 0; i < height[shape]; i++) {
+            covered |= masks[base + i];
+        }
+        return covered;
+    }
+
+    /**
+     * Find the blocks of the board a shape centred on the given block would cover, whether or not it fits. Blocks which
+     * would fall outside the board are left out.
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     * @param footprint filled in with the covered blocks of each row, one bit per column. Must hold at least one word
+     *                  per row.
+     */
+    public void footprint(int shape, int x, int y, long[] footprint) {
+        long full = cols == 64 ? -1L : (1L << cols) - 1;
+        int shift = x - size / 2;
+        int first = y + top[shape];
+        for(int row = 0; row < rows; row++) {
+            int i = row - first;
+            if(i < 0 || i >= height[shape] || shift <= -64 || shift >= 64) {
+                footprint[row] = 0;
+                continue;
+            }
+            long blocks = shapeRows[shape * size + i];
+            footprint[row] = (shift >= 0 ? blocks << shift : blocks >>> -shift) & full;
+        }
+    }
+
+    /**
+     * Mark the blocks of a shape centred on the given block as occupied, given the occupancy of each row of a board.
+     * The placement should already have been checked.
+     * @param occupancy the occupied blocks of each row, one bit per column
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     */
+    public void occupy(long[] occupancy, int shape, int x, int y) {
+        int first = y + top[shape];
+        int base = (shape * cols + x) * size;
+        for(int i = 0; i < height[shape]; i++) {
+            occupancy[first + i] |= masks[base + i];
+        }
+    }
+
+    /**
+     * Fill the blocks of a shape centred on the given block of a board. The placement should already have been checked.
+     * @param board the board to play on
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     * @param value the value to fill the blocks with
+     */
+    public void place(Bitboard board, int shape, int x, int y, int value) {
+        int first = y + top[shape];
+        int base = (shape * cols + x) * size;
+        for(int i = 0; i < height[shape]; i++) {
+            long mask = masks[base + i];
+            while(mask != 0) {
+                board.set(Long.numberOfTrailingZeros(mask), first + i, value);
+                mask &= mask - 1;
+            }
+        }
+    }
+
+}
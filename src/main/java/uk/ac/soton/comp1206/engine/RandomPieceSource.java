@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deals every piece with equal chance, independently of the pieces dealt before it
+ */
+public class RandomPieceSource implements PieceSource {
+
+    /**
+     * The seed the random generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The number of pieces to choose from
+     */
+    private final int pieces;
+
+    /**
+     * The random generator
+     */
+    private SplittableRandom random;
+
+    /**
+     * The number of pieces dealt so far
+     */
+    private long position;
+
+    /**
+     * Create a new source with a randomly chosen seed
+     * @param pieces the number of pieces to choose from
+     */
+    public RandomPieceSource(int pieces) {
+        this(ThreadLocalRandom.current().nextLong(), pieces);
+    }
+
+    /**
+     * Create a new source from the given seed
+     * @param seed the seed
+     * @param pieces the number of pieces to choose from
+     */
+    public RandomPieceSource(long seed, int pieces) {
+        this.seed = seed;
+        this.pieces = pieces;
+        reset();
+    }
+
+    /**
+     * Start the sequence of pieces again from the seed
+     */
+    private void reset() {
+        random = new SplittableRandom(seed);
+        position = 0;
+    }
+
+    @Override
+    public int next() {
+        position++;
+        return random.nextInt(pieces);
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) {
+        if(position < 0) {
+            throw new IllegalArgumentException("Invalid position: " + position);
+        }
+        if(position < this.position) {
+            //Start the sequence again from the seed
+            reset();
+        }
+        while(this.position < position) {
+            next();
+        }
+    }
+
+}
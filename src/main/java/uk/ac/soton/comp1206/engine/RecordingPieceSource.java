@@ -0,0 +1,80 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Arrays;
+
+/**
+ * Deals the same pieces as another source, remembering every piece dealt so it can seek back to any earlier position
+ * in constant time rather than starting the sequence again from the seed.
+ */
+public class RecordingPieceSource implements PieceSource {
+
+    /**
+     * The source new pieces are drawn from
+     */
+    private final PieceSource source;
+
+    /**
+     * Every piece drawn from the source, in order. Only the first recorded entries are in use.
+     */
+    private int[] dealt = new int[64];
+
+    /**
+     * The number of pieces drawn from the source
+     */
+    private int recorded;
+
+    /**
+     * The number of pieces dealt so far
+     */
+    private int position;
+
+    /**
+     * Create a new source which records the pieces dealt by another
+     * @param source the source to deal from
+     */
+    public RecordingPieceSource(PieceSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public int next() {
+        if(position == recorded) {
+            if(recorded == dealt.length) {
+                dealt = Arrays.copyOf(dealt, recorded * 2);
+            }
+            dealt[recorded++] = source.next();
+        }
+        return dealt[position++];
+    }
+
+    @Override
+    public long getSeed() {
+        return source.getSeed();
+    }
+
+    @Override
+    public boolean isBag() {
+        return source.isBag();
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) {
+        if(position < 0) {
+            throw new IllegalArgumentException("Invalid position: " + position);
+        }
+        if(position <= recorded) {
+            this.position = (int) position;
+            return;
+        }
+        this.position = recorded;
+        while(this.position < position) {
+            next();
+        }
+    }
+
+}
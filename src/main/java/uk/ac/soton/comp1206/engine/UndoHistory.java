@@ -0,0 +1,107 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Arrays;
+
+/**
+ * The Undo History keeps a snapshot of a game after each action, so the game can be stepped backwards and forwards
+ * through them.
+ *
+ * Snapshots are written into buffers which are kept and reused, so recording an action only allocates when the
+ * history grows past its largest size so far. Undoing or redoing restores a single snapshot, taking the same time
+ * however long the history is. For this to hold the engine should deal from a RecordingPieceSource, which can seek
+ * back without starting its sequence again.
+ */
+public class UndoHistory {
+
+    /**
+     * The engine whose state is recorded
+     */
+    private final GameEngine engine;
+
+    /**
+     * Snapshot buffers, oldest first
+     */
+    private byte[][] states = new byte[16][];
+
+    /**
+     * Index of the snapshot of the game as it is now
+     */
+    private int current = -1;
+
+    /**
+     * Number of snapshots which can be restored, including any which can be redone
+     */
+    private int top;
+
+    /**
+     * Create a new, empty history of an engine
+     * @param engine the engine to record
+     */
+    public UndoHistory(GameEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Record the state of the game after an action. Any actions which had been undone can no longer be redone.
+     */
+    public void record() {
+        current++;
+        if(current == states.length) {
+            states = Arrays.copyOf(states, states.length * 2);
+        }
+        if(states[current] == null) {
+            states[current] = new byte[engine.getSnapshotSize()];
+        }
+        engine.snapshot(states[current]);
+        top = current + 1;
+    }
+
+    /**
+     * Check whether there is an action to undo
+     * @return true if undo would change the game
+     */
+    public boolean canUndo() {
+        return current > 0;
+    }
+
+    /**
+     * Check whether there is an undone action to redo
+     * @return true if redo would change the game
+     */
+    public boolean canRedo() {
+        return current + 1 < top;
+    }
+
+    /**
+     * Step the game back to its state before the last action
+     * @return true if an action was undone
+     */
+    public boolean undo() {
+        if(!canUndo()) {
+            return false;
+        }
+        engine.restore(states[--current]);
+        return true;
+    }
+
+    /**
+     * Step the game forward to its state after the last action undone
+     * @return true if an action was redone
+     */
+    public boolean redo() {
+        if(!canRedo()) {
+            return false;
+        }
+        engine.restore(states[++current]);
+        return true;
+    }
+
+    /**
+     * Forget every recorded state. The buffers are kept for reuse.
+     */
+    public void clear() {
+        current = -1;
+        top = 0;
+    }
+
+}
@@ -0,0 +1,154 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deals pieces with a chance proportional to a weight given for each piece.
+ *
+ * The weights are turned into an alias table when the source is created (Vose's method), so each piece is chosen in
+ * constant time with one random column and one random comparison, however many pieces there are.
+ */
+public class WeightedPieceSource implements PieceSource {
+
+    /**
+     * The seed the random generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The random generator
+     */
+    private SplittableRandom random;
+
+    /**
+     * The number of pieces dealt so far
+     */
+    private long position;
+
+    /**
+     * The chance of choosing each column's own piece rather than its alias
+     */
+    private final double[] probability;
+
+    /**
+     * The piece chosen instead of each column's own piece
+     */
+    private final int[] alias;
+
+    /**
+     * Create a new source with a randomly chosen seed
+     * @param weights the weight of each piece, indexed by piece number
+     */
+    public WeightedPieceSource(double[] weights) {
+        this(ThreadLocalRandom.current().nextLong(), weights);
+    }
+
+    /**
+     * Create a new source from the given seed
+     * @param seed the seed
+     * @param weights the weight of each piece, indexed by piece number
+     */
+    public WeightedPieceSource(long seed, double[] weights) {
+        this.seed = seed;
+        reset();
+
+        int pieces = weights.length;
+        probability = new double[pieces];
+        alias = new int[pieces];
+
+        double total = 0;
+        for(double weight : weights) {
+            if(weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid piece weight: " + weight);
+            }
+            total += weight;
+        }
+        if(total <= 0) {
+            throw new IllegalArgumentException("At least one piece must have a weight");
+        }
+
+        //Scale the weights so the average column holds exactly 1
+        double[] scaled = new double[pieces];
+        int[] small = new int[pieces];
+        int[] large = new int[pieces];
+        int smallCount = 0;
+        int largeCount = 0;
+        for(int i = 0; i < pieces; i++) {
+            scaled[i] = weights[i] * pieces / total;
+            if(scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        //Fill each under-full column with part of an over-full one
+        while(smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if(scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        //Anything left over is full, allowing for rounding error
+        while(largeCount > 0) {
+            int column = large[--largeCount];
+            probability[column] = 1;
+            alias[column] = column;
+        }
+        while(smallCount > 0) {
+            int column = small[--smallCount];
+            probability[column] = 1;
+            alias[column] = column;
+        }
+    }
+
+    /**
+     * Start the sequence of pieces again from the seed
+     */
+    private void reset() {
+        random = new SplittableRandom(seed);
+        position = 0;
+    }
+
+    @Override
+    public int next() {
+        position++;
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) {
+        if(position < 0) {
+            throw new IllegalArgumentException("Invalid position: " + position);
+        }
+        if(position < this.position) {
+            //Start the sequence again from the seed
+            reset();
+        }
+        while(this.position < position) {
+            next();
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing of board occupancy. Every block of the largest board has a fixed random key, and the hash of a board
+ * is the XOR of the keys of its filled blocks, so filling or emptying a block changes the hash with a single XOR.
+ *
+ * Keys depend only on the column and row of a block, not the size of the board, and the same keys are used on every
+ * run so hashes can be compared between runs.
+ */
+public class Zobrist {
+
+    /**
+     * The key of every block, stored at y * MAX_SIZE + x
+     */
+    private static final long[] keys = new long[Bitboard.MAX_SIZE * Bitboard.MAX_SIZE];
+
+    static {
+        var random = new SplittableRandom(0x7E7EC5L);
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Not instantiable
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key of a block
+     * @param x column
+     * @param y row
+     * @return the key
+     */
+    public static long key(int x, int y) {
+        return keys[y * Bitboard.MAX_SIZE + x];
+    }
+
+    /**
+     * Get the hash of the filled blocks of a row
+     * @param row the occupancy of the row, one bit per column
+     * @param y row
+     * @return the XOR of the keys of the filled blocks
+     */
+    public static long hashRow(long row, int y) {
+        long hash = 0;
+        int base = y * Bitboard.MAX_SIZE;
+        while(row != 0) {
+            hash ^= keys[base + Long.numberOfTrailingZeros(row)];
+            row &= row - 1;
+        }
+        return hash;
+    }
+
+    /**
+     * Get the hash of a board
+     * @param occupancy the occupied blocks of each row, one bit per column
+     * @return the hash
+     */
+    public static long hash(long[] occupancy) {
+        long hash = 0;
+        for(int y = 0; y < occupancy.length; y++) {
+            hash ^= hashRow(occupancy[y], y);
+        }
+        return hash;
+    }
+
+    /**
+     * Scramble a value into a well distributed key, for mixing other state such as the piece to play into a hash
+     * @param value the value
+     * @return the key
+     */
+    public static long mix(long value) {
+        //SplitMix64 finaliser
+        value += 0x9E3779B97F4A7C15L;
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+}
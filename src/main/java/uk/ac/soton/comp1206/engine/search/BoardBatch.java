@@ -0,0 +1,134 @@
+package uk.ac.soton.comp1206.engine.search;
+
+/**
+ * A Board Batch holds many boards of the same size so they can be evaluated together. Boards are stored row-major
+ * across the batch: row y of every board is held together, at y * capacity + board, so the same row of consecutive
+ * boards can be loaded into a vector at once.
+ */
+public class BoardBatch {
+
+    /**
+     * Number of columns of every board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows of every board
+     */
+    private final int rows;
+
+    /**
+     * The number of boards the batch can hold
+     */
+    private final int capacity;
+
+    /**
+     * The occupancy of every row of every board, at y * capacity + board
+     */
+    final long[] occupancy;
+
+    /**
+     * A board to copy one board of the batch into, for evaluating boards one at a time
+     */
+    final long[] single;
+
+    /**
+     * Scratch space of the VectorFeatures, kept with the batch so evaluating it does not allocate. Held as an Object
+     * so this class can be loaded without the jdk.incubator.vector module.
+     */
+    Object vectorScratch;
+
+    /**
+     * The number of boards in the batch
+     */
+    private int size;
+
+    /**
+     * Create a new, empty batch
+     * @param cols number of columns of every board
+     * @param rows number of rows of every board
+     * @param capacity number of boards the batch can hold
+     */
+    public BoardBatch(int cols, int rows, int capacity) {
+        this.cols = cols;
+        this.rows = rows;
+        this.capacity = capacity;
+        this.occupancy = new long[rows * capacity];
+        this.single = new long[rows];
+    }
+
+    /**
+     * Add a board to the batch
+     * @param board the occupied blocks of each row, one bit per column
+     * @return the index of the board in the batch
+     * @throws IllegalStateException if the batch is full
+     */
+    public int add(long[] board) {
+        if(size == capacity) {
+            throw new IllegalStateException("Batch is full");
+        }
+        for(int y = 0; y < rows; y++) {
+            occupancy[y * capacity + size] = board[y];
+        }
+        return size++;
+    }
+
+    /**
+     * Copy a board out of the batch
+     * @param index the index of the board
+     * @param board filled in with the occupied blocks of each row
+     */
+    public void get(int index, long[] board) {
+        for(int y = 0; y < rows; y++) {
+            board[y] = occupancy[y * capacity + index];
+        }
+    }
+
+    /**
+     * Remove every board
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Check whether the batch is full
+     * @return true if no more boards can be added
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Get the number of boards in the batch
+     * @return number of boards
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of boards the batch can hold
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of columns of every board
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of every board
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+}
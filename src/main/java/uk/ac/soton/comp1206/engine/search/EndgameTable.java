@@ -0,0 +1,315 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.Zobrist;
+
+/**
+ * The Endgame Table holds the best placement of every piece on every possible board of a small size, so the best
+ * move can be looked up rather than searched for. A table is built offline by the EndgameTableGenerator and read
+ * back by mapping the file into memory, so only the parts of the table used are ever loaded.
+ *
+ * The 16 byte header holds the magic number, the columns, rows and number of pieces, and a fingerprint of the
+ * catalogue, rules and heuristic the table was built with, so a table is never used with anything else. After it the
+ * table holds three bytes for each board and piece, at (occupancy * pieces + piece) * 3,
+ * where bit y * cols + x of the occupancy is set when block x,y is filled. The first byte is the best placement,
+ * encoded as (rotation * rows + y) * cols + x, or NONE if the piece fits nowhere. The next two are the value of that
+ * placement at a multiplier of 1, as a signed short in units of VALUE_SCALE. This holds any value of a single placement
+ * on a table sized board without clipping, and holds the values of the default FeatureHeuristic exactly.
+ *
+ * Each entry is worth exactly what the MoveSearch gives the last piece it places, so the search looks entries up in
+ * place of valuing every placement of that piece.
+ */
+public class EndgameTable {
+
+    private static final Logger logger = LogManager.getLogger(EndgameTable.class);
+
+    /**
+     * Marks the start of a table file
+     */
+    static final int MAGIC = 0x54454732;
+
+    /**
+     * Bytes before the first entry
+     */
+    static final int HEADER = 16;
+
+    /**
+     * Bytes in each entry
+     */
+    static final int ENTRY = 3;
+
+    /**
+     * The largest number of blocks a board in a table can have, as the table doubles in size with each block
+     */
+    public static final int MAX_BLOCKS = 25;
+
+    /**
+     * The placement stored when a piece fits nowhere
+     */
+    public static final int NONE = 0xFF;
+
+    /**
+     * Points per unit of a stored value
+     */
+    public static final double VALUE_SCALE = 0.25;
+
+    /**
+     * The file the table for the standard board is read from
+     */
+    public static final Path DEFAULT_FILE = Path.of("endgame.table");
+
+    /**
+     * The table for the standard board, once loaded
+     */
+    private static EndgameTable standard;
+
+    /**
+     * Whether loading the table for the standard board has been tried
+     */
+    private static boolean standardLoaded;
+
+    /**
+     * Number of columns of the boards in this table
+     */
+    private final int cols;
+
+    /**
+     * Number of rows of the boards in this table
+     */
+    private final int rows;
+
+    /**
+     * Number of pieces in this table
+     */
+    private final int pieces;
+
+    /**
+     * Fingerprint of the catalogue, rules and heuristic this table was built with
+     */
+    private final long fingerprint;
+
+    /**
+     * The table file, mapped into memory
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Create a table over a mapped file
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces number of pieces
+     * @param fingerprint fingerprint of the catalogue, rules and heuristic the table was built with
+     * @param buffer the mapped file
+     */
+    private EndgameTable(int cols, int rows, int pieces, long fingerprint, MappedByteBuffer buffer) {
+        this.cols = cols;
+        this.rows = rows;
+        this.pieces = pieces;
+        this.fingerprint = fingerprint;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Open a table file
+     * @param path the file
+     * @return the table
+     * @throws IOException if the file cannot be read or is not a complete table
+     */
+    public static EndgameTable open(Path path) throws IOException {
+        try(var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if(channel.size() < HEADER || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an endgame table: " + path);
+            }
+
+            int cols = buffer.get(4);
+            int rows = buffer.get(5);
+            int pieces = buffer.getShort(6);
+            if(cols * rows > MAX_BLOCKS || channel.size() != size(cols, rows, pieces)) {
+                throw new IOException("Incomplete endgame table: " + path);
+            }
+            return new EndgameTable(cols, rows, pieces, buffer.getLong(8), buffer);
+        }
+    }
+
+    /**
+     * Get the table for the standard board, loading it from DEFAULT_FILE the first time. The table must have been built
+     * for the standard catalogue and rules with the default FeatureHeuristic.
+     * @return the table, or null if there is no table file or it was built for anything else
+     */
+    public static synchronized EndgameTable getStandard() {
+        if(!standardLoaded) {
+            standardLoaded = true;
+            if(Files.exists(DEFAULT_FILE)) {
+                try {
+                    var table = open(DEFAULT_FILE);
+                    if(table.matches(PieceCatalogue.STANDARD, GameRules.STANDARD, new FeatureHeuristic())) {
+                        standard = table;
+                        logger.info("Loaded endgame table for {}x{} boards", standard.cols, standard.rows);
+                    } else {
+                        logger.error("Endgame table {} was built for different pieces, rules or heuristic, and will"
+                                + " not be used", DEFAULT_FILE);
+                    }
+                } catch (IOException e) {
+                    logger.error("Could not load endgame table", e);
+                }
+            }
+        }
+        return standard;
+    }
+
+    /**
+     * Get the fingerprint a table built with a catalogue, rules and heuristic holds
+     * @param catalogue the shapes pieces are dealt from
+     * @param rules the rules placements are scored by
+     * @param heuristic values the board left by each placement
+     * @return the fingerprint
+     */
+    static long fingerprint(PieceCatalogue catalogue, GameRules rules, Heuristic heuristic) {
+        //Stored values are scored at a multiplier of 1, so only the points per block matter
+        long hash = Zobrist.mix(catalogue.getFingerprint());
+        hash = Zobrist.mix(hash ^ heuristic.getFingerprint());
+        return Zobrist.mix(hash ^ rules.getBlockPoints());
+    }
+
+    /**
+     * Get the size of a table file
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces number of pieces
+     * @return size in bytes
+     */
+    static long size(int cols, int rows, int pieces) {
+        return HEADER + (1L << (cols * rows)) * pieces * ENTRY;
+    }
+
+    /**
+     * Check whether this table covers a game valued by a heuristic
+     * @param engine the game
+     * @param heuristic the heuristic the game's moves are valued by
+     * @return true if the game is played on the board size, catalogue and rules of this table
+     */
+    public boolean covers(GameEngine engine, Heuristic heuristic) {
+        return matches(engine.getCatalogue(), engine.getRules(), heuristic)
+                && covers(engine.getCols(), engine.getRows());
+    }
+
+    /**
+     * Check whether this table holds boards of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return true if entries can be looked up for these boards
+     */
+    public boolean covers(int cols, int rows) {
+        return cols == this.cols && rows == this.rows;
+    }
+
+    /**
+     * Check whether this table was built for a catalogue, rules and heuristic
+     * @param catalogue the shapes pieces are dealt from
+     * @param rules the rules placements are scored by
+     * @param heuristic values the board left by each placement
+     * @return true if the entries hold the values these give
+     */
+    public boolean matches(PieceCatalogue catalogue, GameRules rules, Heuristic heuristic) {
+        return catalogue.size() == pieces && fingerprint(catalogue, rules, heuristic) == fingerprint;
+    }
+
+    /**
+     * Get the encoded best placement of a piece on a board
+     * @param occupancy bit y * cols + x set when block x,y is filled
+     * @param piece piece number
+     * @return the placement, or NONE if the piece fits nowhere
+     */
+    public int getPlacement(int occupancy, int piece) {
+        return buffer.get(offset(occupancy, piece)) & 0xFF;
+    }
+
+    /**
+     * Get the value of the best placement of a piece on a board, at a multiplier of 1
+     * @param occupancy bit y * cols + x set when block x,y is filled
+     * @param piece piece number
+     * @return the value, to within VALUE_SCALE
+     */
+    public double getValue(int occupancy, int piece) {
+        return buffer.getShort(offset(occupancy, piece) + 1) * VALUE_SCALE;
+    }
+
+    /**
+     * Look up the best single placement in a game, playing either the current piece or the following piece after a
+     * swap. Only the placement itself is valued, at a multiplier of 1, so this is weaker than a MoveSearch looking
+     * further ahead.
+     * @param engine the game, which this table must cover
+     * @return the best move, or null if neither piece fits anywhere
+     */
+    public SearchResult lookup(GameEngine engine) {
+        int occupancy = 0;
+        for(int y = 0; y < rows; y++) {
+            occupancy |= (int) engine.getBoard().getRow(y) << (y * cols);
+        }
+
+        SearchResult current = lookup(occupancy, engine.getCurrentPiece(), false);
+        SearchResult following = lookup(occupancy, engine.getFollowingPiece(), true);
+        if(current == null || following != null && following.getValue() > current.getValue()) {
+            return following;
+        }
+        return current;
+    }
+
+    /**
+     * Look up the best placement of a piece
+     * @param occupancy bit y * cols + x set when block x,y is filled
+     * @param piece piece number
+     * @param swap whether the piece is played after a swap
+     * @return the move, or null if the piece fits nowhere
+     */
+    private SearchResult lookup(int occupancy, int piece, boolean swap) {
+        int placement = getPlacement(occupancy, piece);
+        if(placement == NONE) {
+            return null;
+        }
+        int x = placement % cols;
+        int y = placement / cols % rows;
+        int rotation = placement / (cols * rows);
+        return new SearchResult(swap, piece, rotation, x, y, getValue(occupancy, piece), 1);
+    }
+
+    /**
+     * Get the position of an entry in the file
+     * @param occupancy the board
+     * @param piece piece number
+     * @return byte offset
+     */
+    private int offset(int occupancy, int piece) {
+        return (int) (HEADER + ((long) occupancy * pieces + piece) * ENTRY);
+    }
+
+    /**
+     * Get the number of columns of the boards in this table
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the boards in this table
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+}
@@ -0,0 +1,207 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.PlacementTable;
+
+/**
+ * Builds an EndgameTable for every board of a given size, valuing each placement of each piece by the score it makes
+ * at a multiplier of 1 plus a heuristic value of the board it leaves. These are the same values the MoveSearch gives
+ * the last piece it places, so a search with the same catalogue, rules and heuristic can look them up instead. Boards
+ * are shared out in chunks across every core, and each chunk is written straight to its place in the file.
+ *
+ * Run with: EndgameTableGenerator [file] [cols] [rows]. The defaults build endgame.table for the standard 5x5 board,
+ * which is around 1.5GB.
+ */
+public class EndgameTableGenerator {
+
+    private static final Logger logger = LogManager.getLogger(EndgameTableGenerator.class);
+
+    /**
+     * Number of boards in each chunk of work
+     */
+    private static final int CHUNK = 1 << 14;
+
+    /**
+     * The shapes pieces are dealt from
+     */
+    private final PieceCatalogue catalogue;
+
+    /**
+     * The rules placements are scored by
+     */
+    private final GameRules rules;
+
+    /**
+     * Values the board left by each placement
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * The placement table for the board size
+     */
+    private final PlacementTable table;
+
+    /**
+     * Create a new generator
+     * @param catalogue the shapes pieces are dealt from
+     * @param rules the rules placements are scored by
+     * @param heuristic values the board left by each placement
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public EndgameTableGenerator(PieceCatalogue catalogue, GameRules rules, Heuristic heuristic, int cols, int rows) {
+        if(cols * rows > EndgameTable.MAX_BLOCKS) {
+            throw new IllegalArgumentException("Board too large for an endgame table: " + cols + "x" + rows);
+        }
+        if(4 * cols * rows >= EndgameTable.NONE) {
+            throw new IllegalArgumentException("Too many placements to encode: " + cols + "x" + rows);
+        }
+        this.catalogue = catalogue;
+        this.rules = rules;
+        this.heuristic = heuristic;
+        this.cols = cols;
+        this.rows = rows;
+        this.table = catalogue.getPlacementTable(cols, rows);
+    }
+
+    /**
+     * Build the table and write it to a file
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void generate(Path path) throws IOException {
+        int pieces = catalogue.size();
+        long boards = 1L << (cols * rows);
+        int chunks = (int) ((boards + CHUNK - 1) / CHUNK);
+        var done = new AtomicInteger();
+
+        try(var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var header = ByteBuffer.allocate(EndgameTable.HEADER);
+            header.putInt(EndgameTable.MAGIC);
+            header.put((byte) cols);
+            header.put((byte) rows);
+            header.putShort((short) pieces);
+            header.putLong(EndgameTable.fingerprint(catalogue, rules, heuristic));
+            header.flip();
+            channel.write(header, 0);
+
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int first = chunk * CHUNK;
+                int count = (int) Math.min(CHUNK, boards - first);
+                var entries = ByteBuffer.allocate(count * pieces * EndgameTable.ENTRY);
+                long[] board = new long[rows];
+                long[] after = new long[rows];
+
+                for(int occupancy = first; occupancy < first + count; occupancy++) {
+                    for(int y = 0; y < rows; y++) {
+                        board[y] = occupancy >>> (y * cols) & ((1L << cols) - 1);
+                    }
+                    for(int piece = 0; piece < pieces; piece++) {
+                        best(board, after, piece, entries);
+                    }
+                }
+
+                entries.flip();
+                try {
+                    long position = EndgameTable.HEADER + (long) first * pieces * EndgameTable.ENTRY;
+                    while(entries.hasRemaining()) {
+                        position += channel.write(entries, position);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                int finished = done.incrementAndGet();
+                if(finished % 256 == 0 || finished == chunks) {
+                    logger.info("Generated {} of {} chunks", finished, chunks);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Find the best placement of a piece on a board and add its entry to a buffer
+     * @param board the board
+     * @param after scratch board
+     * @param piece piece number
+     * @param entries buffer to add the entry to
+     * @throws IllegalStateException if the value is too large to store
+     */
+    private void best(long[] board, long[] after, int piece, ByteBuffer entries) {
+        int bestPlacement = EndgameTable.NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for(int rotation : catalogue.get(piece).getDistinctRotations()) {
+            int shape = piece * 4 + rotation;
+            for(int y = 0; y < rows; y++) {
+                long legal = table.legalColumns(board, shape, y);
+                while(legal != 0) {
+                    int x = Long.numberOfTrailingZeros(legal);
+                    legal &= legal - 1;
+
+                    System.arraycopy(board, 0, after, 0, rows);
+                    double value = SearchBoards.play(rules, table, after, cols, shape, x, y, 1)
+                            + heuristic.evaluate(after, cols);
+                    if(value > bestValue) {
+                        bestValue = value;
+                        bestPlacement = (rotation * rows + y) * cols + x;
+                    }
+                }
+            }
+        }
+
+        //Where the piece fits nowhere, store what the search gives a piece which will run out of time
+        if(bestPlacement == EndgameTable.NONE) {
+            bestValue = heuristic.evaluate(board, cols) + MoveSearch.NO_MOVE;
+        }
+
+        long scaled = Math.round(bestValue / EndgameTable.VALUE_SCALE);
+        if(scaled < Short.MIN_VALUE || scaled > Short.MAX_VALUE) {
+            throw new IllegalStateException("Value too large for an endgame table: " + bestValue);
+        }
+        entries.put((byte) bestPlacement);
+        entries.putShort((short) scaled);
+    }
+
+    /**
+     * Build a table from the command line
+     * @param args file, columns and rows, all optional
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = args.length > 0 ? Path.of(args[0]) : EndgameTable.DEFAULT_FILE;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        logger.info("Generating endgame table for {}x{} boards in {}", cols, rows, path);
+        long start = System.nanoTime();
+        new EndgameTableGenerator(PieceCatalogue.STANDARD, GameRules.STANDARD, new FeatureHeuristic(), cols, rows)
+                .generate(path);
+        logger.info("Finished in {}s", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+}
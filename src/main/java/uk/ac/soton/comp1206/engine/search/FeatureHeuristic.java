@@ -0,0 +1,153 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.Zobrist;
+
+/**
+ * The Feature Heuristic values a board from four features, all worked out from the row occupancy with bit operations:
+ * the sum of squared row and column fills, which rewards blocks gathered into lines; lines missing a single block;
+ * empty blocks walled in on every side; and fragmentation, the number of changes between filled and empty blocks
+ * along each row.
+ *
+ * Batches of boards are evaluated with the JDK Vector API when the jdk.incubator.vector module is present, computing
+ * the features of as many boards at once as the CPU's vectors hold. Otherwise each board is evaluated in turn. Both
+ * give exactly the same values.
+ */
+public class FeatureHeuristic implements Heuristic {
+
+    private static final Logger logger = LogManager.getLogger(FeatureHeuristic.class);
+
+    /**
+     * Whether the Vector API can be used
+     */
+    private static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    static {
+        logger.info("Batch evaluation {}", VECTOR ? "uses the Vector API" : "is scalar, as jdk.incubator.vector is not present");
+    }
+
+    /**
+     * Weight of the sum of squared row and column fills
+     */
+    final double lineWeight;
+
+    /**
+     * Reward for each line missing a single block
+     */
+    final double nearWeight;
+
+    /**
+     * Penalty for each walled in empty block
+     */
+    final double holePenalty;
+
+    /**
+     * Penalty for each change between filled and empty blocks along a row
+     */
+    final double fragmentPenalty;
+
+    /**
+     * Create a new heuristic with the default weights
+     */
+    public FeatureHeuristic() {
+        this(1, 4, 8, 1);
+    }
+
+    /**
+     * Create a new heuristic with the given weights
+     * @param lineWeight weight of the sum of squared row and column fills
+     * @param nearWeight reward for each line missing a single block
+     * @param holePenalty penalty for each walled in empty block
+     * @param fragmentPenalty penalty for each change between filled and empty blocks along a row
+     */
+    public FeatureHeuristic(double lineWeight, double nearWeight, double holePenalty, double fragmentPenalty) {
+        this.lineWeight = lineWeight;
+        this.nearWeight = nearWeight;
+        this.holePenalty = holePenalty;
+        this.fragmentPenalty = fragmentPenalty;
+    }
+
+    /**
+     * Check whether batches are evaluated with the Vector API
+     * @return true if the Vector API is used
+     */
+    public static boolean isVectorised() {
+        return VECTOR;
+    }
+
+    @Override
+    public long getFingerprint() {
+        long hash = Zobrist.mix(getClass().getName().hashCode());
+        hash = Zobrist.mix(hash ^ Double.doubleToLongBits(lineWeight));
+        hash = Zobrist.mix(hash ^ Double.doubleToLongBits(nearWeight));
+        hash = Zobrist.mix(hash ^ Double.doubleToLongBits(holePenalty));
+        return Zobrist.mix(hash ^ Double.doubleToLongBits(fragmentPenalty));
+    }
+
+    @Override
+    public double evaluate(long[] occupancy, int cols) {
+        int rows = occupancy.length;
+        long full = cols == 64 ? -1L : (1L << cols) - 1;
+
+        long lines = 0;
+        long near = 0;
+        long holes = 0;
+        long fragments = 0;
+        long emptyOnce = 0;
+        long emptyTwice = 0;
+        for(int y = 0; y < rows; y++) {
+            long row = occupancy[y];
+            long fill = Long.bitCount(row);
+
+            //The sum of squared column fills is the sum of the blocks every pair of rows have in common
+            lines += fill * fill;
+            for(int other = 0; other < rows; other++) {
+                lines += Long.bitCount(row & occupancy[other]);
+            }
+
+            if(fill == cols - 1) {
+                near++;
+            }
+
+            long walled = ~row & full;
+            walled &= (row >>> 1) | (1L << (cols - 1));
+            walled &= (row << 1) | 1;
+            walled &= y == 0 ? full : occupancy[y - 1];
+            walled &= y == rows - 1 ? full : occupancy[y + 1];
+            holes += Long.bitCount(walled);
+
+            fragments += Long.bitCount((row ^ (row >>> 1)) & (full >>> 1));
+
+            //Columns with exactly one empty block are missing a single block
+            long empty = ~row & full;
+            emptyTwice |= emptyOnce & empty;
+            emptyOnce |= empty;
+        }
+        near += Long.bitCount(emptyOnce & ~emptyTwice);
+
+        return combine(lines, near, holes, fragments);
+    }
+
+    /**
+     * Combine the features of a board into its value
+     * @param lines sum of squared row and column fills
+     * @param near lines missing a single block
+     * @param holes walled in empty blocks
+     * @param fragments changes between filled and empty blocks along rows
+     * @return the value
+     */
+    double combine(long lines, long near, long holes, long fragments) {
+        return lineWeight * lines + nearWeight * near - holePenalty * holes - fragmentPenalty * fragments;
+    }
+
+    @Override
+    public void evaluate(BoardBatch batch, double[] values) {
+        if(VECTOR) {
+            VectorFeatures.evaluate(this, batch, values);
+        } else {
+            Heuristic.super.evaluate(batch, values);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package uk.ac.soton.comp1206.engine.search;
+
+/**
+ * A Heuristic estimates how good a board is to keep playing on, in roughly the same units as score, so the search can
+ * compare boards it has not played out to the end.
+ */
+public interface Heuristic {
+
+    /**
+     * Estimate the value of a board
+     * @param occupancy the occupied blocks of each row, one bit per column
+     * @param cols number of columns
+     * @return the estimated value, higher being better
+     */
+    public double evaluate(long[] occupancy, int cols);
+
+    /**
+     * Get a fingerprint of this heuristic and its weights, so values stored under one heuristic, such as an endgame
+     * table, are not read back by a search using another
+     * @return the fingerprint
+     */
+    public long getFingerprint();
+
+    /**
+     * Estimate the value of every board in a batch. By default each board is evaluated in turn.
+     * @param batch the boards
+     * @param values filled in with the value of each board, by index in the batch
+     */
+    public default void evaluate(BoardBatch batch, double[] values) {
+        long[] board = batch.single;
+        for(int i = 0; i < batch.size(); i++) {
+            batch.get(i, board);
+            values[i] = evaluate(board, batch.getCols());
+        }
+    }
+
+}
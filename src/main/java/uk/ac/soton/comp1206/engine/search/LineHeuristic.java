@@ -0,0 +1,72 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import uk.ac.soton.comp1206.engine.Zobrist;
+
+/**
+ * The Line Heuristic rewards boards whose blocks are gathered into nearly complete rows and columns, and penalises
+ * empty blocks walled in on every side, which only the smallest piece can ever fill.
+ */
+public class LineHeuristic implements Heuristic {
+
+    /**
+     * Weight of the sum of squared row and column fills
+     */
+    private final double lineWeight;
+
+    /**
+     * Penalty for each walled in empty block
+     */
+    private final double holePenalty;
+
+    /**
+     * Create a new heuristic with the default weights
+     */
+    public LineHeuristic() {
+        this(1, 8);
+    }
+
+    /**
+     * Create a new heuristic with the given weights
+     * @param lineWeight weight of the sum of squared row and column fills
+     * @param holePenalty penalty for each walled in empty block
+     */
+    public LineHeuristic(double lineWeight, double holePenalty) {
+        this.lineWeight = lineWeight;
+        this.holePenalty = holePenalty;
+    }
+
+    @Override
+    public long getFingerprint() {
+        long hash = Zobrist.mix(getClass().getName().hashCode());
+        hash = Zobrist.mix(hash ^ Double.doubleToLongBits(lineWeight));
+        return Zobrist.mix(hash ^ Double.doubleToLongBits(holePenalty));
+    }
+
+    @Override
+    public double evaluate(long[] occupancy, int cols) {
+        int rows = occupancy.length;
+        long full = cols == 64 ? -1L : (1L << cols) - 1;
+
+        //The sum of squared column fills is the sum of the blocks every pair of rows have in common
+        int lines = 0;
+        int holes = 0;
+        for(int y = 0; y < rows; y++) {
+            long row = occupancy[y];
+            int fill = Long.bitCount(row);
+            lines += fill * fill;
+            for(int other = 0; other < rows; other++) {
+                lines += Long.bitCount(row & occupancy[other]);
+            }
+
+            //Empty blocks whose neighbours are all filled or off the board
+            long walled = ~row & full;
+            walled &= (row >>> 1) | (1L << (cols - 1));
+            walled &= (row << 1) | 1;
+            walled &= y == 0 ? full : occupancy[y - 1];
+            walled &= y == rows - 1 ? full : occupancy[y + 1];
+            holes += Long.bitCount(walled);
+        }
+        return lineWeight * lines - holePenalty * holes;
+    }
+
+}
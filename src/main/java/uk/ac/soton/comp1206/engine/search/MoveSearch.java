@@ -0,0 +1,697 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.PlacementTable;
+import uk.ac.soton.comp1206.engine.Zobrist;
+
+/**
+ * The Move Search finds the move which maximises expected score: where to play the current piece, or the following
+ * piece after swapping, and in which rotation.
+ *
+ * Each move is valued as the score it makes plus the value of the best moves after it, down to the search depth. The
+ * first two pieces placed are the current and following pieces; every piece after that is unknown, so its value is
+ * the average over every piece it could be. Boards at the bottom of the search are valued by a heuristic.
+ *
+ * Values are kept in a transposition table, keyed by the Zobrist hash of the board together with the piece to play,
+ * the multiplier and the depth left, so a position reached by more than one order of moves is only valued once.
+ *
+ * The moves one piece from the bottom of the search are gathered into a batch, so the heuristic can value many boards
+ * at once. Where an endgame table covers the board and the multiplier is 1, the value of the last piece is looked up
+ * from the table instead, which gives the same value without trying every placement.
+ *
+ * The moves at the top of the search are shared out across a ForkJoinPool. The search deepens one piece at a time
+ * until it reaches the search depth or runs out of time, and returns the best move of the deepest search completed.
+ * The deadline is checked as each move is tried, not only as each position is entered, so a search overruns its
+ * budget by at most the time to value one board.
+ */
+public class MoveSearch {
+
+    /**
+     * Value given to a position where the piece to play fits nowhere, and will run out of time
+     */
+    static final double NO_MOVE = -1000;
+
+    /**
+     * The number of boards valued together at the bottom of the search
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Whether the search has been warmed up in the background
+     */
+    private static boolean warmUpStarted;
+
+    /**
+     * The shapes pieces are dealt from
+     */
+    private final PieceCatalogue catalogue;
+
+    /**
+     * The rules moves are scored by
+     */
+    private final GameRules rules;
+
+    /**
+     * Values the boards at the bottom of the search
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * The number of pieces to look ahead
+     */
+    private final int depth;
+
+    /**
+     * The time allowed for each search, in nanoseconds
+     */
+    private final long budget;
+
+    /**
+     * The pool the search runs on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Values of positions already searched, kept between searches
+     */
+    private final TranspositionTable transpositions;
+
+    /**
+     * The table to look up the value of the last piece in, or null to always search it
+     */
+    private final EndgameTable endgame;
+
+    /**
+     * The rotations of each piece which give different shapes, so symmetric pieces are not searched more than once
+     */
+    private final int[][] rotations;
+
+    /**
+     * The scratch space of each thread the search has run on, reused from one task and search to the next
+     */
+    private final ThreadLocal<Scratch> scratches = new ThreadLocal<>();
+
+    /**
+     * Create a new search of the standard catalogue by the standard rules, with the feature heuristic, running on the
+     * common pool. The standard endgame table is used, if there is one.
+     * @param depth number of pieces to look ahead
+     * @param budget time allowed for each search, in nanoseconds
+     */
+    public MoveSearch(int depth, long budget) {
+        this(PieceCatalogue.STANDARD, GameRules.STANDARD, depth, budget);
+    }
+
+    /**
+     * Create a new search of a catalogue, with the feature heuristic, running on the common pool. The standard endgame
+     * table is used where it covers the catalogue and rules, if there is one.
+     * @param catalogue the shapes pieces are dealt from
+     * @param rules the rules moves are scored by
+     * @param depth number of pieces to look ahead
+     * @param budget time allowed for each search, in nanoseconds
+     */
+    public MoveSearch(PieceCatalogue catalogue, GameRules rules, int depth, long budget) {
+        this(catalogue, rules, new FeatureHeuristic(), depth, budget, ForkJoinPool.commonPool(),
+                new TranspositionTable(18), EndgameTable.getStandard());
+    }
+
+    /**
+     * Create a new search
+     * @param catalogue the shapes pieces are dealt from
+     * @param rules the rules moves are scored by
+     * @param heuristic values the boards at the bottom of the search
+     * @param depth number of pieces to look ahead, at least 1
+     * @param budget time allowed for each search, in nanoseconds
+     * @param pool the pool to run the search on
+     * @param transpositions the table to keep the values of positions in. Must only be shared between searches using
+     *                       the same catalogue, rules and heuristic.
+     */
+    public MoveSearch(PieceCatalogue catalogue, GameRules rules, Heuristic heuristic, int depth, long budget,
+                      ForkJoinPool pool, TranspositionTable transpositions) {
+        this(catalogue, rules, heuristic, depth, budget, pool, transpositions, null);
+    }
+
+    /**
+     * Create a new search which looks up the value of the last piece in an endgame table where it can
+     * @param catalogue the shapes pieces are dealt from
+     * @param rules the rules moves are scored by
+     * @param heuristic values the boards at the bottom of the search
+     * @param depth number of pieces to look ahead, at least 1
+     * @param budget time allowed for each search, in nanoseconds
+     * @param pool the pool to run the search on
+     * @param transpositions the table to keep the values of positions in. Must only be shared between searches using
+     *                       the same catalogue, rules and heuristic.
+     * @param endgame the endgame table, or null to always search. A table is only used if it was built for the same
+     *                catalogue, rules and heuristic.
+     */
+    public MoveSearch(PieceCatalogue catalogue, GameRules rules, Heuristic heuristic, int depth, long budget,
+                      ForkJoinPool pool, TranspositionTable transpositions, EndgameTable endgame) {
+        if(depth < 1) {
+            throw new IllegalArgumentException("Search depth must be at least 1");
+        }
+        this.catalogue = catalogue;
+        this.rules = rules;
+        this.heuristic = heuristic;
+        this.depth = depth;
+        this.budget = budget;
+        this.pool = pool;
+        this.transpositions = transpositions;
+        this.endgame = endgame != null && endgame.matches(catalogue, rules, heuristic) ? endgame : null;
+
+        rotations = new int[catalogue.size()][];
+        for(int piece = 0; piece < catalogue.size(); piece++) {
+            rotations[piece] = catalogue.get(piece).getDistinctRotations();
+        }
+    }
+
+    /**
+     * Start warming up the search on a low priority background thread, the first time this is called
+     * @param time how long to search for, in nanoseconds
+     */
+    public static synchronized void startWarmUp(long time) {
+        if(warmUpStarted) {
+            return;
+        }
+        warmUpStarted = true;
+        var thread = new Thread(() -> warmUp(time), "Search warm up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Search random standard boards for the given time, on the calling thread, so the search code is compiled before a
+     * player is waiting on it. A search run cold can take several times its budget while the JIT compiles it.
+     * @param time how long to search for, in nanoseconds
+     */
+    public static void warmUp(long time) {
+        var search = new MoveSearch(PieceCatalogue.STANDARD, GameRules.STANDARD, new FeatureHeuristic(), 3,
+                12_000_000L, ForkJoinPool.commonPool(), new TranspositionTable(12));
+        var random = new Random();
+        long[] occupancy = new long[5];
+        long end = System.nanoTime() + time;
+        while(System.nanoTime() - end < 0) {
+            for(int y = 0; y < occupancy.length; y++) {
+                occupancy[y] = random.nextInt(32) & random.nextInt(32);
+            }
+            int pieces = PieceCatalogue.STANDARD.size();
+            search.search(occupancy, 5, random.nextInt(pieces), random.nextInt(pieces), 1 + random.nextInt(3));
+        }
+    }
+
+    /**
+     * Search for the best move in a game
+     * @param engine the game
+     * @return the best move, or null if neither piece can be played anywhere
+     * @throws IllegalArgumentException if the game deals from a different catalogue to this search
+     */
+    public SearchResult search(GameEngine engine) {
+        if(engine.getCatalogue() != catalogue) {
+            throw new IllegalArgumentException("The game deals from a different catalogue to the search");
+        }
+        long[] occupancy = new long[engine.getRows()];
+        for(int y = 0; y < occupancy.length; y++) {
+            occupancy[y] = engine.getBoard().getRow(y);
+        }
+        return search(occupancy, engine.getCols(), engine.getCurrentPiece(), engine.getFollowingPiece(),
+                engine.getMultiplier());
+    }
+
+    /**
+     * Search for the best move on a board
+     * @param occupancy the occupied blocks of each row, one bit per column
+     * @param cols number of columns
+     * @param current piece number of the current piece
+     * @param following piece number of the following piece
+     * @param multiplier the current multiplier
+     * @return the best move, or null if neither piece can be played anywhere. A search which runs out of time still
+     * returns a move if either piece fits.
+     */
+    public SearchResult search(long[] occupancy, int cols, int current, int following, int multiplier) {
+        var search = new Search(occupancy.clone(), cols, System.nanoTime() + budget);
+
+        SearchResult best = null;
+        for(int d = 1; d <= depth; d++) {
+            SearchResult result = search.run(current, following, multiplier, d);
+            if(search.timedOut) {
+                //A deeper search cut short is worse than the last one completed, but better than no move at all
+                if(best == null) {
+                    best = result;
+                }
+                break;
+            }
+            best = result;
+            if(best == null) {
+                //Nothing fits, so searching deeper will not find anything either
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The state shared by every task of one search
+     */
+    private class Search {
+
+        /**
+         * The board being searched from
+         */
+        final long[] occupancy;
+
+        /**
+         * Number of columns
+         */
+        final int cols;
+
+        /**
+         * The placement table for the board size
+         */
+        final PlacementTable table;
+
+        /**
+         * The time, in nanoseconds, the search must finish by
+         */
+        final long deadline;
+
+        /**
+         * The endgame table to look the last piece up in, or null if it does not cover this board
+         */
+        final EndgameTable endgame;
+
+        /**
+         * Set once the deadline has passed, to stop every task
+         */
+        volatile boolean timedOut;
+
+        /**
+         * Create the state for a new search
+         * @param occupancy the board
+         * @param cols number of columns
+         * @param deadline time to finish by
+         */
+        Search(long[] occupancy, int cols, long deadline) {
+            this.occupancy = occupancy;
+            this.cols = cols;
+            this.table = catalogue.getPlacementTable(cols, occupancy.length);
+            this.deadline = deadline;
+            this.endgame = MoveSearch.this.endgame != null
+                    && MoveSearch.this.endgame.covers(cols, occupancy.length) ? MoveSearch.this.endgame : null;
+        }
+
+        /**
+         * Check whether the deadline has passed, and stop every task if it has
+         * @return true if the search has run out of time
+         */
+        boolean outOfTime() {
+            if(!timedOut && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+            }
+            return timedOut;
+        }
+
+        /**
+         * Get the scratch space of the calling thread, big enough for this search
+         * @param depth number of pieces to look ahead
+         * @return the scratch space
+         */
+        Scratch scratch(int depth) {
+            Scratch scratch = scratches.get();
+            if(scratch == null || !scratch.fits(cols, occupancy.length, depth)) {
+                scratch = new Scratch(cols, occupancy.length, depth);
+                scratches.set(scratch);
+            }
+            return scratch;
+        }
+
+        /**
+         * Search every first move to the given depth in parallel
+         * @param current piece number of the current piece
+         * @param following piece number of the following piece
+         * @param multiplier the current multiplier
+         * @param depth number of pieces to look ahead
+         * @return the best move, or null if there is none. If the search runs out of time this is the best of the moves
+         * valued in time, or if none were, any legal move with a value of NaN and a depth of 0.
+         */
+        SearchResult run(int current, int following, int multiplier, int depth) {
+            List<Candidate> candidates = new ArrayList<>();
+            for(int swap = 0; swap < 2; swap++) {
+                int piece = swap == 0 ? current : following;
+                int other = swap == 0 ? following : current;
+                if(swap == 1 && piece == current) break;
+
+                for(int rotation : rotations[piece]) {
+                    int shape = piece * 4 + rotation;
+                    for(int y = 0; y < occupancy.length; y++) {
+                        long legal = table.legalColumns(occupancy, shape, y);
+                        while(legal != 0) {
+                            int x = Long.numberOfTrailingZeros(legal);
+                            candidates.add(new Candidate(this, swap == 1, piece, rotation, x, y, other, multiplier, depth));
+                            legal &= legal - 1;
+                        }
+                    }
+                }
+            }
+
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(candidates);
+                }
+            });
+
+            Candidate best = null;
+            for(Candidate candidate : candidates) {
+                if(candidate.finished && (best == null || candidate.value > best.value)) {
+                    best = candidate;
+                }
+            }
+            if(best == null && !candidates.isEmpty()) {
+                //Nothing was valued before the deadline, but a piece which fits is still better than none
+                Candidate any = candidates.get(0);
+                return new SearchResult(any.swap, any.piece, any.rotation, any.x, any.y, Double.NaN, 0);
+            }
+            return best == null ? null
+                    : new SearchResult(best.swap, best.piece, best.rotation, best.x, best.y, best.value, depth);
+        }
+
+        /**
+         * Value a board where a known piece is to be played next
+         * @param scratch the scratch space of the task
+         * @param level index of the board to play on
+         * @param hash the Zobrist hash of the board
+         * @param piece piece number to play, or -1 if unknown
+         * @param multiplier the multiplier
+         * @param depth number of pieces left to look ahead
+         * @return the expected value
+         */
+        double value(Scratch scratch, int level, long hash, int piece, int multiplier, int depth) {
+            long[] board = scratch.boards[level];
+            if(depth == 0) {
+                return heuristic.evaluate(board, cols);
+            }
+            if(outOfTime()) {
+                return 0;
+            }
+
+            //The same position is often reached by playing the same pieces in a different order
+            long key = hash ^ Zobrist.mix((long) (piece + 1) << 40 | (long) multiplier << 8 | depth);
+            double cached = transpositions.get(key);
+            if(!Double.isNaN(cached)) {
+                return cached;
+            }
+
+            double result;
+            if(piece < 0) {
+                //The next piece could be any piece
+                double total = 0;
+                for(int next = 0; next < rotations.length && !timedOut; next++) {
+                    total += value(scratch, level, hash, next, multiplier, depth);
+                }
+                result = total / rotations.length;
+            } else if(depth == 1 && multiplier == 1 && endgame != null) {
+                result = endgame.getValue(occupancy(board), piece);
+            } else if(depth == 1) {
+                result = batchValue(scratch, board, piece, multiplier);
+            } else {
+                double best = Double.NEGATIVE_INFINITY;
+                long[] child = scratch.boards[level + 1];
+                for(int rotation : rotations[piece]) {
+                    int shape = piece * 4 + rotation;
+                    for(int y = 0; y < board.length; y++) {
+                        long legal = table.legalColumns(board, shape, y);
+                        while(legal != 0) {
+                            if(outOfTime()) {
+                                return 0;
+                            }
+                            int x = Long.numberOfTrailingZeros(legal);
+                            System.arraycopy(board, 0, child, 0, board.length);
+                            int score = play(child, shape, x, y, multiplier);
+                            long childHash = hash ^ changed(board, child);
+                            double value = score + value(scratch, level + 1, childHash, -1,
+                                    SearchBoards.multiplierAfter(score, multiplier), depth - 1);
+                            best = Math.max(best, value);
+                            legal &= legal - 1;
+                        }
+                    }
+                }
+                result = best == Double.NEGATIVE_INFINITY ? heuristic.evaluate(board, cols) + NO_MOVE : best;
+            }
+
+            if(!timedOut) {
+                transpositions.put(key, result, depth);
+            }
+            return result;
+        }
+
+        /**
+         * Value a board where a known piece is the last to be played, valuing every board it leads to as a batch
+         * @param scratch the scratch space of the task
+         * @param board the board
+         * @param piece piece number to play
+         * @param multiplier the multiplier
+         * @return the value of the best move
+         */
+        double batchValue(Scratch scratch, long[] board, int piece, int multiplier) {
+            BoardBatch batch = scratch.batch;
+            long[] child = scratch.child;
+            double best = Double.NEGATIVE_INFINITY;
+            batch.clear();
+            for(int rotation : rotations[piece]) {
+                int shape = piece * 4 + rotation;
+                for(int y = 0; y < board.length; y++) {
+                    long legal = table.legalColumns(board, shape, y);
+                    while(legal != 0) {
+                        if(outOfTime()) {
+                            batch.clear();
+                            return 0;
+                        }
+                        int x = Long.numberOfTrailingZeros(legal);
+                        System.arraycopy(board, 0, child, 0, board.length);
+                        int score = play(child, shape, x, y, multiplier);
+                        scratch.scores[batch.add(child)] = score;
+                        if(batch.isFull()) {
+                            best = Math.max(best, scratch.flush());
+                        }
+                        legal &= legal - 1;
+                    }
+                }
+            }
+            best = Math.max(best, scratch.flush());
+            return best == Double.NEGATIVE_INFINITY ? heuristic.evaluate(board, cols) + NO_MOVE : best;
+        }
+
+        /**
+         * Pack a board into the occupancy an endgame table is indexed by
+         * @param board the board
+         * @return bit y * cols + x set when block x,y is filled
+         */
+        int occupancy(long[] board) {
+            int occupancy = 0;
+            for(int y = 0; y < board.length; y++) {
+                occupancy |= (int) board[y] << (y * cols);
+            }
+            return occupancy;
+        }
+
+        /**
+         * Get the change in Zobrist hash between two boards
+         * @param before the board before a move
+         * @param after the board after the move
+         * @return the hash of before XOR the hash of after
+         */
+        long changed(long[] before, long[] after) {
+            long hash = 0;
+            for(int y = 0; y < before.length; y++) {
+                long diff = before[y] ^ after[y];
+                if(diff != 0) {
+                    hash ^= Zobrist.hashRow(diff, y);
+                }
+            }
+            return hash;
+        }
+
+        /**
+         * Play a shape on a board, clearing any completed lines
+         * @param board the board, changed in place
+         * @param shape the shape
+         * @param x column
+         * @param y row
+         * @param multiplier the multiplier
+         * @return the score made
+         */
+        int play(long[] board, int shape, int x, int y, int multiplier) {
+            return SearchBoards.play(rules, table, board, cols, shape, x, y, multiplier);
+        }
+    }
+
+    /**
+     * The boards a task works on, so the search does not allocate as it goes
+     */
+    private class Scratch {
+
+        /**
+         * A board for each level of the search
+         */
+        final long[][] boards;
+
+        /**
+         * A board to play the last piece on before adding it to the batch
+         */
+        final long[] child;
+
+        /**
+         * The boards made by the last piece, waiting to be valued
+         */
+        final BoardBatch batch;
+
+        /**
+         * The score made by each board in the batch
+         */
+        final int[] scores = new int[BATCH_SIZE];
+
+        /**
+         * The heuristic value of each board in the batch
+         */
+        final double[] values = new double[BATCH_SIZE];
+
+        /**
+         * Create the scratch space for a task
+         * @param cols number of columns
+         * @param rows number of rows
+         * @param depth number of pieces to look ahead
+         */
+        Scratch(int cols, int rows, int depth) {
+            boards = new long[depth + 1][rows];
+            child = new long[rows];
+            batch = new BoardBatch(cols, rows, BATCH_SIZE);
+        }
+
+        /**
+         * Check whether this scratch space is big enough for a search
+         * @param cols number of columns
+         * @param rows number of rows
+         * @param depth number of pieces to look ahead
+         * @return true if it can be used
+         */
+        boolean fits(int cols, int rows, int depth) {
+            return batch.getCols() == cols && batch.getRows() == rows && boards.length > depth;
+        }
+
+        /**
+         * Value every board in the batch and empty it
+         * @return the best score plus value of the boards, or negative infinity if the batch was empty
+         */
+        double flush() {
+            double best = Double.NEGATIVE_INFINITY;
+            if(batch.size() > 0) {
+                heuristic.evaluate(batch, values);
+                for(int i = 0; i < batch.size(); i++) {
+                    best = Math.max(best, scores[i] + values[i]);
+                }
+                batch.clear();
+            }
+            return best;
+        }
+    }
+
+    /**
+     * One first move, valued as a task of its own
+     */
+    private class Candidate extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The search this move belongs to
+         */
+        final Search search;
+
+        /**
+         * The move: whether to swap first, then the piece, rotation and block to play it on
+         */
+        final boolean swap;
+        final int piece;
+        final int rotation;
+        final int x;
+        final int y;
+
+        /**
+         * The piece number of the piece played after this one
+         */
+        final int other;
+
+        /**
+         * The multiplier before this move
+         */
+        final int multiplier;
+
+        /**
+         * Number of pieces to look ahead, including this one
+         */
+        final int depth;
+
+        /**
+         * The value of this move, once computed
+         */
+        double value;
+
+        /**
+         * Set once the value has been computed before the deadline
+         */
+        boolean finished;
+
+        /**
+         * Create a new first move to value
+         * @param search the search this move belongs to
+         * @param swap whether to swap first
+         * @param piece piece number to play
+         * @param rotation rotation to play in
+         * @param x column
+         * @param y row
+         * @param other piece number of the piece played after this one
+         * @param multiplier the multiplier before this move
+         * @param depth number of pieces to look ahead
+         */
+        Candidate(Search search, boolean swap, int piece, int rotation, int x, int y, int other, int multiplier,
+                  int depth) {
+            this.search = search;
+            this.swap = swap;
+            this.piece = piece;
+            this.rotation = rotation;
+            this.x = x;
+            this.y = y;
+            this.other = other;
+            this.multiplier = multiplier;
+            this.depth = depth;
+        }
+
+        /**
+         * Play this move on a copy of the board and value the moves after it
+         */
+        @Override
+        protected void compute() {
+            if(search.outOfTime()) {
+                return;
+            }
+            var scratch = search.scratch(depth);
+            long[] board = scratch.boards[0];
+            System.arraycopy(search.occupancy, 0, board, 0, board.length);
+
+            int score = search.play(board, piece * 4 + rotation, x, y, multiplier);
+            value = score + search.value(scratch, 0, Zobrist.hash(board), other,
+                    SearchBoards.multiplierAfter(score, multiplier), depth - 1);
+            finished = !search.timedOut;
+        }
+    }
+
+}
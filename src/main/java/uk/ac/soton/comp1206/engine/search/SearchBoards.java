@@ -0,0 +1,66 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.engine.PlacementTable;
+
+/**
+ * Moves on the bare occupancy boards used by search code, following the same rules as the GameEngine
+ */
+class SearchBoards {
+
+    /**
+     * Not instantiable
+     */
+    private SearchBoards() {
+    }
+
+    /**
+     * Play a shape on a board, clearing any completed lines
+     * @param rules the rules the move is scored by
+     * @param table the placement table for the board size
+     * @param board the occupied blocks of each row, changed in place
+     * @param cols number of columns
+     * @param shape the shape
+     * @param x column
+     * @param y row
+     * @param multiplier the multiplier
+     * @return the score made
+     */
+    static int play(GameRules rules, PlacementTable table, long[] board, int cols, int shape, int x, int y,
+                    int multiplier) {
+        table.occupy(board, shape, x, y);
+
+        long fullRow = cols == 64 ? -1L : (1L << cols) - 1;
+        long fullRows = 0;
+        long fullCols = fullRow;
+        for(int row = 0; row < board.length; row++) {
+            if(board[row] == fullRow) {
+                fullRows |= 1L << row;
+            }
+            fullCols &= board[row];
+        }
+
+        int rowLines = Long.bitCount(fullRows);
+        int colLines = Long.bitCount(fullCols);
+        if(rowLines + colLines == 0) {
+            return 0;
+        }
+
+        for(int row = 0; row < board.length; row++) {
+            board[row] = (fullRows >>> row & 1) != 0 ? 0 : board[row] & ~fullCols;
+        }
+        int blocks = rowLines * cols + colLines * board.length - rowLines * colLines;
+        return rules.score(rowLines + colLines, blocks, multiplier);
+    }
+
+    /**
+     * Get the multiplier after a move. Any move which clears a line scores, and only those moves raise the multiplier.
+     * @param score the score made by the move
+     * @param multiplier the multiplier before the move
+     * @return the multiplier after the move
+     */
+    static int multiplierAfter(int score, int multiplier) {
+        return score > 0 ? multiplier + 1 : 1;
+    }
+
+}
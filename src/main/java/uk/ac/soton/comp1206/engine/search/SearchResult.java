@@ -0,0 +1,130 @@
+package uk.ac.soton.comp1206.engine.search;
+
+/**
+ * The best move found by a search: whether to swap the current and following pieces first, the rotation to play the
+ * piece in and the block to centre it on.
+ */
+public class SearchResult {
+
+    /**
+     * Whether to swap the current and following pieces before playing
+     */
+    private final boolean swap;
+
+    /**
+     * The piece number to play
+     */
+    private final int piece;
+
+    /**
+     * The rotation to play the piece in, from 0 to 3
+     */
+    private final int rotation;
+
+    /**
+     * The column to centre the piece on
+     */
+    private final int x;
+
+    /**
+     * The row to centre the piece on
+     */
+    private final int y;
+
+    /**
+     * The expected value of the move
+     */
+    private final double value;
+
+    /**
+     * The depth the move was searched to
+     */
+    private final int depth;
+
+    /**
+     * Create a new search result
+     * @param swap whether to swap first
+     * @param piece piece number to play
+     * @param rotation rotation to play in
+     * @param x column
+     * @param y row
+     * @param value expected value
+     * @param depth depth searched
+     */
+    public SearchResult(boolean swap, int piece, int rotation, int x, int y, double value, int depth) {
+        this.swap = swap;
+        this.piece = piece;
+        this.rotation = rotation;
+        this.x = x;
+        this.y = y;
+        this.value = value;
+        this.depth = depth;
+    }
+
+    /**
+     * Check whether to swap the current and following pieces before playing
+     * @return true to swap
+     */
+    public boolean isSwap() {
+        return swap;
+    }
+
+    /**
+     * Get the piece number to play
+     * @return piece number
+     */
+    public int getPiece() {
+        return piece;
+    }
+
+    /**
+     * Get the rotation to play the piece in
+     * @return rotation, from 0 to 3
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Get the column to centre the piece on
+     * @return column
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the row to centre the piece on
+     * @return row
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get the expected value of the move
+     * @return expected score plus the heuristic value of the board it leads to, or NaN if the search ran out of time
+     * before valuing any move
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Get the depth the move was searched to
+     * @return number of pieces looked ahead, or 0 if the search ran out of time before valuing any move
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Return the string representation of this move
+     * @return the move
+     */
+    public String toString() {
+        return (swap ? "swap, " : "") + "piece " + piece + " rotation " + rotation + " at " + x + "," + y
+                + " (value " + value + ", depth " + depth + ")";
+    }
+
+}
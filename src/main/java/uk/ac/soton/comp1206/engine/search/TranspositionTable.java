@@ -0,0 +1,106 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import java.util.Arrays;
+
+/**
+ * The Transposition Table remembers the value of positions the search has already valued, so a board reached through
+ * different move orders is only searched once.
+ *
+ * The table has a fixed number of entries held in primitive arrays, so it never grows. Entries are grouped in pairs:
+ * the first of each pair keeps whichever position took the deepest search to value, and the second always takes the
+ * newest position. Each entry stores its key XOR its value, so an entry torn by two threads writing at once never
+ * matches a key and is simply treated as missing.
+ */
+public class TranspositionTable {
+
+    /**
+     * Each entry's key XOR its data
+     */
+    private final long[] checks;
+
+    /**
+     * Each entry's value, as raw double bits
+     */
+    private final long[] data;
+
+    /**
+     * The depth each entry was searched to, 0 for an empty entry
+     */
+    private final byte[] depths;
+
+    /**
+     * Mask selecting the first entry of a pair from a key
+     */
+    private final int mask;
+
+    /**
+     * Create a new, empty table
+     * @param sizeBits the table holds 2 to the power of sizeBits entries
+     */
+    public TranspositionTable(int sizeBits) {
+        if(sizeBits < 1 || sizeBits > 30) {
+            throw new IllegalArgumentException("Invalid table size: " + sizeBits);
+        }
+        int size = 1 << sizeBits;
+        checks = new long[size];
+        data = new long[size];
+        depths = new byte[size];
+        mask = size - 2;
+    }
+
+    /**
+     * Look up the value of a position
+     * @param key the key of the position
+     * @return the value, or NaN if the position is not in the table
+     */
+    public double get(long key) {
+        int index = (int) key & mask;
+        for(int slot = index; slot < index + 2; slot++) {
+            long value = data[slot];
+            if((checks[slot] ^ value) == key && depths[slot] != 0) {
+                return Double.longBitsToDouble(value);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Store the value of a position
+     * @param key the key of the position
+     * @param value the value
+     * @param depth the depth the position was searched to, at least 1
+     */
+    public void put(long key, double value, int depth) {
+        int index = (int) key & mask;
+
+        //Keep the deeper search in the first entry, otherwise use the second
+        int slot = index + 1;
+        long stored = data[index];
+        if((checks[index] ^ stored) == key || depth >= depths[index]) {
+            slot = index;
+        }
+
+        long bits = Double.doubleToRawLongBits(value);
+        data[slot] = bits;
+        checks[slot] = key ^ bits;
+        depths[slot] = (byte) Math.min(depth, Byte.MAX_VALUE);
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        Arrays.fill(depths, (byte) 0);
+        Arrays.fill(checks, 0);
+        Arrays.fill(data, 0);
+    }
+
+    /**
+     * Get the number of entries the table can hold
+     * @return number of entries
+     */
+    public int size() {
+        return checks.length;
+    }
+
+}
@@ -0,0 +1,261 @@
+package uk.ac.soton.comp1206.engine.search;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the features of the FeatureHeuristic for a batch of boards with the JDK Vector API, one board per lane.
+ * Only loaded once the jdk.incubator.vector module is known to be present.
+ */
+class VectorFeatures {
+
+    /**
+     * The widest vector of longs the CPU supports
+     */
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Not instantiable
+     */
+    private VectorFeatures() {
+    }
+
+    /**
+     * Evaluate every board in a batch
+     * @param heuristic the weights to combine the features with
+     * @param batch the boards
+     * @param values filled in with the value of each board
+     */
+    static void evaluate(FeatureHeuristic heuristic, BoardBatch batch, double[] values) {
+        int cols = batch.getCols();
+        int size = batch.size();
+
+        int lanes = SPECIES.length();
+        if(!(batch.vectorScratch instanceof Scratch)) {
+            batch.vectorScratch = new Scratch(lanes);
+        }
+        Scratch scratch = (Scratch) batch.vectorScratch;
+        long[] lines = scratch.lines;
+        long[] near = scratch.near;
+        long[] nearColumns = scratch.nearColumns;
+        long[] holes = scratch.holes;
+        long[] fragments = scratch.fragments;
+        long[] fills = scratch.fills;
+
+        //Each pass is kept small enough for the JIT to inline all of it, so no vector is ever boxed
+        int bound = SPECIES.loopBound(size);
+        int i = 0;
+        for(; i < bound; i += lanes) {
+            rowFeatures(batch, i, scratch);
+            cellFeatures(batch, i, scratch);
+            for(int lane = 0; lane < lanes; lane++) {
+                long columns = columnSquares(fills, lane, lanes);
+                long nearCount = near[lane] + Long.bitCount(nearColumns[lane]);
+                values[i + lane] = heuristic.combine(lines[lane] + columns, nearCount, holes[lane], fragments[lane]);
+            }
+        }
+
+        //Boards left over after the last full vector
+        long[] single = batch.single;
+        for(; i < size; i++) {
+            batch.get(i, single);
+            values[i] = heuristic.evaluate(single, cols);
+        }
+    }
+
+    /**
+     * Sum the squared fill of every row and find the rows and columns one cell short of full, for one vector of
+     * boards. The fill of each column is counted down the board with ripple carry counters, one vector per bit, and
+     * left in the scratch space for columnSquares.
+     * @param batch the boards
+     * @param first the first board in the vector
+     * @param scratch where the features are written
+     */
+    private static void rowFeatures(BoardBatch batch, int first, Scratch scratch) {
+        int cols = batch.getCols();
+        int rows = batch.getRows();
+        int capacity = batch.getCapacity();
+        long[] occupancy = batch.occupancy;
+        long full = cols == 64 ? -1L : (1L << cols) - 1;
+        int lanes = SPECIES.length();
+
+        LongVector lineSum = LongVector.zero(SPECIES);
+        LongVector nearSum = LongVector.zero(SPECIES);
+        LongVector emptyOnce = LongVector.zero(SPECIES);
+        LongVector emptyTwice = LongVector.zero(SPECIES);
+
+        //Bit k of each column's fill, enough for 64 rows
+        LongVector fill0 = LongVector.zero(SPECIES);
+        LongVector fill1 = LongVector.zero(SPECIES);
+        LongVector fill2 = LongVector.zero(SPECIES);
+        LongVector fill3 = LongVector.zero(SPECIES);
+        LongVector fill4 = LongVector.zero(SPECIES);
+        LongVector fill5 = LongVector.zero(SPECIES);
+        LongVector fill6 = LongVector.zero(SPECIES);
+
+        for(int y = 0; y < rows; y++) {
+            LongVector row = LongVector.fromArray(SPECIES, occupancy, y * capacity + first);
+            LongVector fill = bitCount(row);
+
+            lineSum = lineSum.add(fill.mul(fill));
+            nearSum = nearSum.add(1, fill.compare(VectorOperators.EQ, cols - 1));
+
+            LongVector carry = row;
+            LongVector next = fill0.and(carry);
+            fill0 = fill0.lanewise(VectorOperators.XOR, carry);
+            carry = next;
+            next = fill1.and(carry);
+            fill1 = fill1.lanewise(VectorOperators.XOR, carry);
+            carry = next;
+            next = fill2.and(carry);
+            fill2 = fill2.lanewise(VectorOperators.XOR, carry);
+            carry = next;
+            next = fill3.and(carry);
+            fill3 = fill3.lanewise(VectorOperators.XOR, carry);
+            carry = next;
+            next = fill4.and(carry);
+            fill4 = fill4.lanewise(VectorOperators.XOR, carry);
+            carry = next;
+            next = fill5.and(carry);
+            fill5 = fill5.lanewise(VectorOperators.XOR, carry);
+            carry = next;
+            fill6 = fill6.lanewise(VectorOperators.XOR, carry);
+
+            LongVector empty = row.not().and(full);
+            emptyTwice = emptyTwice.or(emptyOnce.and(empty));
+            emptyOnce = emptyOnce.or(empty);
+        }
+
+        lineSum.intoArray(scratch.lines, 0);
+        nearSum.intoArray(scratch.near, 0);
+        emptyOnce.and(emptyTwice.not()).intoArray(scratch.nearColumns, 0);
+        long[] fills = scratch.fills;
+        fill0.intoArray(fills, 0);
+        fill1.intoArray(fills, lanes);
+        fill2.intoArray(fills, 2 * lanes);
+        fill3.intoArray(fills, 3 * lanes);
+        fill4.intoArray(fills, 4 * lanes);
+        fill5.intoArray(fills, 5 * lanes);
+        fill6.intoArray(fills, 6 * lanes);
+    }
+
+    /**
+     * Count the holes and fragments of one vector of boards
+     * @param batch the boards
+     * @param first the first board in the vector
+     * @param scratch where the features are written
+     */
+    private static void cellFeatures(BoardBatch batch, int first, Scratch scratch) {
+        int cols = batch.getCols();
+        int rows = batch.getRows();
+        int capacity = batch.getCapacity();
+        long[] occupancy = batch.occupancy;
+        long full = cols == 64 ? -1L : (1L << cols) - 1;
+
+        LongVector holeSum = LongVector.zero(SPECIES);
+        LongVector fragmentSum = LongVector.zero(SPECIES);
+
+        //Each row is loaded once, and kept as the row above the next
+        LongVector fullRow = LongVector.broadcast(SPECIES, full);
+        LongVector above = fullRow;
+        LongVector row = LongVector.fromArray(SPECIES, occupancy, first);
+        for(int y = 0; y < rows; y++) {
+            LongVector below = y == rows - 1
+                    ? fullRow
+                    : LongVector.fromArray(SPECIES, occupancy, (y + 1) * capacity + first);
+
+            LongVector walled = row.not().and(full)
+                    .and(row.lanewise(VectorOperators.LSHR, 1).or(1L << (cols - 1)))
+                    .and(row.lanewise(VectorOperators.LSHL, 1).or(1))
+                    .and(above)
+                    .and(below);
+            holeSum = holeSum.add(bitCount(walled));
+
+            LongVector changes = row.lanewise(VectorOperators.XOR, row.lanewise(VectorOperators.LSHR, 1))
+                    .and(full >>> 1);
+            fragmentSum = fragmentSum.add(bitCount(changes));
+
+            above = row;
+            row = below;
+        }
+
+        holeSum.intoArray(scratch.holes, 0);
+        fragmentSum.intoArray(scratch.fragments, 0);
+    }
+
+    /**
+     * The arrays evaluating a batch works in, made the first time the batch is evaluated
+     */
+    private static class Scratch {
+
+        /**
+         * The features of each lane, copied out of the vectors
+         */
+        final long[] lines;
+        final long[] near;
+        final long[] holes;
+        final long[] fragments;
+
+        /**
+         * The columns one cell short of full in each lane
+         */
+        final long[] nearColumns;
+
+        /**
+         * Bit k of each column's fill in each lane, at k * lanes + lane
+         */
+        final long[] fills;
+
+        /**
+         * Create the scratch space for a batch
+         * @param lanes number of lanes in a vector
+         */
+        Scratch(int lanes) {
+            lines = new long[lanes];
+            near = new long[lanes];
+            holes = new long[lanes];
+            fragments = new long[lanes];
+            nearColumns = new long[lanes];
+            fills = new long[7 * lanes];
+        }
+    }
+
+    /**
+     * Sum the squared fill of every column of one board, from the bits of each column's fill
+     * @param fills bit k of each column's fill in each lane, at k * lanes + lane
+     * @param lane the board's lane
+     * @param lanes number of lanes in a vector
+     * @return the sum of squared column fills
+     */
+    private static long columnSquares(long[] fills, int lane, int lanes) {
+        //A fill is the sum of f_k * 2^k, so its square is the sum of f_j * f_k * 2^(j + k) over every pair of bits,
+        //with pairs of different bits counted twice
+        long sum = 0;
+        for(int j = 0; j < 7; j++) {
+            long bitJ = fills[j * lanes + lane];
+            sum += (long) Long.bitCount(bitJ) << (2 * j);
+            for(int k = j + 1; k < 7; k++) {
+                sum += (long) Long.bitCount(bitJ & fills[k * lanes + lane]) << (j + k + 1);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Count the set bits in each lane. The Vector API in JDK 17 has no bit count operation, so the bits are summed in
+     * parallel within each lane.
+     * @param v the vector
+     * @return the number of set bits in each lane
+     */
+    private static LongVector bitCount(LongVector v) {
+        v = v.sub(v.lanewise(VectorOperators.LSHR, 1).and(0x5555555555555555L));
+        v = v.and(0x3333333333333333L).add(v.lanewise(VectorOperators.LSHR, 2).and(0x3333333333333333L));
+        v = v.add(v.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F0F0F0F0F0F0FL);
+        v = v.add(v.lanewise(VectorOperators.LSHR, 8));
+        v = v.add(v.lanewise(VectorOperators.LSHR, 16));
+        v = v.add(v.lanewise(VectorOperators.LSHR, 32));
+        return v.and(0x7F);
+    }
+
+}
@@ -0,0 +1,137 @@
+package uk.ac.soton.comp1206.engine.sim;
+
+import java.util.Arrays;
+
+/**
+ * A Distribution summarises a set of values from many simulated games: their mean, spread and percentiles.
+ */
+public class Distribution {
+
+    /**
+     * The percentiles reported for every distribution
+     */
+    static final double[] PERCENTILES = {1, 10, 25, 50, 75, 90, 99};
+
+    /**
+     * The values, sorted
+     */
+    private final double[] sorted;
+
+    /**
+     * The mean of the values
+     */
+    private final double mean;
+
+    /**
+     * The standard deviation of the values
+     */
+    private final double deviation;
+
+    /**
+     * Create a new distribution of the given values
+     * @param values the values, which are not changed
+     */
+    public Distribution(double[] values) {
+        sorted = values.clone();
+        Arrays.sort(sorted);
+
+        double total = 0;
+        for(double value : sorted) {
+            total += value;
+        }
+        mean = sorted.length == 0 ? 0 : total / sorted.length;
+
+        double squares = 0;
+        for(double value : sorted) {
+            squares += (value - mean) * (value - mean);
+        }
+        deviation = sorted.length == 0 ? 0 : Math.sqrt(squares / sorted.length);
+    }
+
+    /**
+     * Create a new distribution of the given values
+     * @param values the values
+     */
+    public Distribution(int[] values) {
+        this(Arrays.stream(values).asDoubleStream().toArray());
+    }
+
+    /**
+     * Get the number of values
+     * @return count
+     */
+    public int getCount() {
+        return sorted.length;
+    }
+
+    /**
+     * Get the mean of the values
+     * @return mean
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Get the standard deviation of the values
+     * @return standard deviation
+     */
+    public double getDeviation() {
+        return deviation;
+    }
+
+    /**
+     * Get the smallest value
+     * @return minimum, or 0 if there are no values
+     */
+    public double getMin() {
+        return sorted.length == 0 ? 0 : sorted[0];
+    }
+
+    /**
+     * Get the largest value
+     * @return maximum, or 0 if there are no values
+     */
+    public double getMax() {
+        return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+    }
+
+    /**
+     * Get a percentile of the values, by the nearest rank
+     * @param percent the percentile, from 0 to 100
+     * @return the value, or 0 if there are no values
+     */
+    public double getPercentile(double percent) {
+        if(sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Get the heading row of a table of distributions
+     * @return the column headings
+     */
+    static String heading() {
+        var heading = new StringBuilder(String.format("%-18s %10s %10s %10s", "", "mean", "sd", "min"));
+        for(double percent : PERCENTILES) {
+            heading.append(String.format(" %10s", "p" + (int) percent));
+        }
+        return heading.append(String.format(" %10s", "max")).toString();
+    }
+
+    /**
+     * Format this distribution as a row of a table of distributions
+     * @param name name of the row
+     * @return the row
+     */
+    String row(String name) {
+        var row = new StringBuilder(String.format("%-18s %10.2f %10.2f %10.2f", name, mean, deviation, getMin()));
+        for(double percent : PERCENTILES) {
+            row.append(String.format(" %10.2f", getPercentile(percent)));
+        }
+        return row.append(String.format(" %10.2f", getMax())).toString();
+    }
+
+}
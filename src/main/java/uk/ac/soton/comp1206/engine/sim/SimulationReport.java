@@ -0,0 +1,217 @@
+package uk.ac.soton.comp1206.engine.sim;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import uk.ac.soton.comp1206.engine.GameRules;
+
+/**
+ * A Simulation Report collects the outcome of every game in a simulation. Each game writes only its own entries, so
+ * games running in parallel can record into the same report.
+ */
+public class SimulationReport {
+
+    /**
+     * Streaks this long or longer are counted together
+     */
+    static final int MAX_STREAK = 16;
+
+    /**
+     * The rules the games were played by
+     */
+    private final GameRules rules;
+
+    /**
+     * Final score of each game
+     */
+    private final int[] scores;
+
+    /**
+     * Final level of each game
+     */
+    private final int[] levels;
+
+    /**
+     * Pieces played in each game
+     */
+    private final int[] pieces;
+
+    /**
+     * Length of each game, in seconds of play
+     */
+    private final double[] seconds;
+
+    /**
+     * Lines cleared per piece played in each game
+     */
+    private final double[] linesPerPiece;
+
+    /**
+     * Longest run of pieces in a row clearing lines in each game
+     */
+    private final int[] longestStreaks;
+
+    /**
+     * Number of runs of each length of pieces in a row clearing lines, across every game
+     */
+    private final AtomicLongArray streaks = new AtomicLongArray(MAX_STREAK + 1);
+
+    /**
+     * Number of games stopped at the piece limit rather than played to the end
+     */
+    private final AtomicInteger capped = new AtomicInteger();
+
+    /**
+     * Create a new, empty report
+     * @param rules the rules the games are played by
+     * @param games number of games
+     */
+    SimulationReport(GameRules rules, int games) {
+        this.rules = rules;
+        scores = new int[games];
+        levels = new int[games];
+        pieces = new int[games];
+        seconds = new double[games];
+        linesPerPiece = new double[games];
+        longestStreaks = new int[games];
+    }
+
+    /**
+     * Record the outcome of one game
+     * @param game index of the game
+     * @param score final score
+     * @param level final level
+     * @param placed pieces played
+     * @param time length of the game, in seconds
+     * @param lines lines cleared
+     * @param longest longest run of pieces clearing lines
+     * @param stopped whether the game was stopped at the piece limit
+     */
+    void record(int game, int score, int level, int placed, double time, int lines, int longest, boolean stopped) {
+        scores[game] = score;
+        levels[game] = level;
+        pieces[game] = placed;
+        seconds[game] = time;
+        linesPerPiece[game] = placed == 0 ? 0 : (double) lines / placed;
+        longestStreaks[game] = longest;
+        if(stopped) {
+            capped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Add counts of runs of pieces clearing lines
+     * @param counts number of runs of each length, up to MAX_STREAK
+     */
+    void addStreaks(long[] counts) {
+        for(int length = 1; length <= MAX_STREAK; length++) {
+            if(counts[length] != 0) {
+                streaks.addAndGet(length, counts[length]);
+            }
+        }
+    }
+
+    /**
+     * Get the number of games played
+     * @return number of games
+     */
+    public int getGames() {
+        return scores.length;
+    }
+
+    /**
+     * Get the number of games stopped at the piece limit rather than played to the end
+     * @return number of games
+     */
+    public int getCapped() {
+        return capped.get();
+    }
+
+    /**
+     * Get the distribution of final scores
+     * @return scores
+     */
+    public Distribution getScores() {
+        return new Distribution(scores);
+    }
+
+    /**
+     * Get the distribution of final levels
+     * @return levels
+     */
+    public Distribution getLevels() {
+        return new Distribution(levels);
+    }
+
+    /**
+     * Get the distribution of pieces played before the game ended
+     * @return pieces played
+     */
+    public Distribution getSurvival() {
+        return new Distribution(pieces);
+    }
+
+    /**
+     * Get the distribution of game lengths
+     * @return game lengths, in seconds
+     */
+    public Distribution getSurvivalTime() {
+        return new Distribution(seconds);
+    }
+
+    /**
+     * Get the distribution of lines cleared per piece played
+     * @return lines per piece
+     */
+    public Distribution getLinesPerPiece() {
+        return new Distribution(linesPerPiece);
+    }
+
+    /**
+     * Get the distribution of the longest run of pieces clearing lines in each game. The highest multiplier reached is
+     * one more than this.
+     * @return longest streaks
+     */
+    public Distribution getLongestStreaks() {
+        return new Distribution(longestStreaks);
+    }
+
+    /**
+     * Get the number of runs of a given length of pieces in a row clearing lines
+     * @param length length of the run, where MAX_STREAK counts every longer run too
+     * @return number of runs
+     */
+    public long getStreaks(int length) {
+        return streaks.get(length);
+    }
+
+    /**
+     * Print the report
+     * @param out where to print to
+     */
+    public void print(PrintStream out) {
+        out.println("Rules: " + rules);
+        out.println("Games: " + getGames() + (getCapped() > 0 ? " (" + getCapped() + " stopped at the piece limit)" : ""));
+        out.println();
+        out.println(Distribution.heading());
+        out.println(getScores().row("score"));
+        out.println(getLevels().row("level"));
+        out.println(getSurvival().row("pieces"));
+        out.println(getSurvivalTime().row("seconds"));
+        out.println(getLinesPerPiece().row("lines per piece"));
+        out.println(getLongestStreaks().row("longest streak"));
+        out.println();
+
+        long total = 0;
+        for(int length = 1; length <= MAX_STREAK; length++) {
+            total += streaks.get(length);
+        }
+        out.println("Streaks of pieces clearing lines in a row:");
+        for(int length = 1; length <= MAX_STREAK; length++) {
+            long count = streaks.get(length);
+            out.println(String.format("%5s %12d %7.3f%%", length == MAX_STREAK ? length + "+" : length, count,
+                    total == 0 ? 0 : 100.0 * count / total));
+        }
+    }
+
+}
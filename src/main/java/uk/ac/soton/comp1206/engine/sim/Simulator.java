@@ -0,0 +1,281 @@
+package uk.ac.soton.comp1206.engine.sim;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.BagPieceSource;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.PieceSource;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.engine.search.FeatureHeuristic;
+import uk.ac.soton.comp1206.engine.search.MoveSearch;
+import uk.ac.soton.comp1206.engine.search.SearchResult;
+import uk.ac.soton.comp1206.engine.search.TranspositionTable;
+
+/**
+ * The Simulator plays many games by a set of rules without a window, each one by a bot using the move search, so the
+ * rules can be tuned from the scores and game lengths they give. Games are shared out in chunks across every core.
+ *
+ * Each game runs on a clock of its own rather than the wall clock: the bot takes a fixed time to decide each move,
+ * and a piece it cannot play anywhere waits out its countdown, losing a life as a player would. A game with seed s and
+ * index i always deals the same pieces, so any game in a report can be replayed.
+ *
+ * Run with: Simulator [--option value]... where the options are games, cols, rows, depth, think (milliseconds per
+ * move), max-pieces, seed, bag (true to deal from a shuffled bag), threads, pieces (a piece file to deal from instead of
+ * the standard pieces), and the rules: lives, block-points, level-points, delay, delay-step and min-delay. Rules
+ * default to the standard rules.
+ */
+public class Simulator {
+
+    private static final Logger logger = LogManager.getLogger(Simulator.class);
+
+    /**
+     * Number of games in each chunk of work
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * Time allowed for each move search, long enough that the search always reaches its depth
+     */
+    private static final long SEARCH_BUDGET = 60_000_000_000L;
+
+    /**
+     * The rules the games are played by
+     */
+    private final GameRules rules;
+
+    /**
+     * The shapes pieces are dealt from
+     */
+    private final PieceCatalogue catalogue;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of pieces the bot looks ahead
+     */
+    private final int depth;
+
+    /**
+     * Time the bot takes to decide each move, in nanoseconds
+     */
+    private final long thinkTime;
+
+    /**
+     * Games still going after this many pieces are stopped. Pieces which run out of time count too, so a game which
+     * never ends, such as an endless game where nothing fits, is still stopped.
+     */
+    private final int maxPieces;
+
+    /**
+     * Seed of the first game; each following game adds one
+     */
+    private final long seed;
+
+    /**
+     * Whether pieces are dealt from a shuffled bag rather than independently at random
+     */
+    private final boolean bag;
+
+    /**
+     * Create a new simulator
+     * @param rules the rules the games are played by
+     * @param catalogue the shapes pieces are dealt from
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param depth number of pieces the bot looks ahead
+     * @param thinkTime time the bot takes to decide each move, in nanoseconds
+     * @param maxPieces games still going after this many pieces, placed or run out of time, are stopped
+     * @param seed seed of the first game
+     * @param bag whether pieces are dealt from a shuffled bag
+     */
+    public Simulator(GameRules rules, PieceCatalogue catalogue, int cols, int rows, int depth, long thinkTime, int maxPieces, long seed,
+                     boolean bag) {
+        this.rules = rules;
+        this.catalogue = catalogue;
+        this.cols = cols;
+        this.rows = rows;
+        this.depth = depth;
+        this.thinkTime = thinkTime;
+        this.maxPieces = maxPieces;
+        this.seed = seed;
+        this.bag = bag;
+    }
+
+    /**
+     * Play a number of games in parallel
+     * @param games number of games
+     * @param pool the pool to play them on
+     * @return the outcome of every game
+     */
+    public SimulationReport run(int games, ForkJoinPool pool) {
+        var report = new SimulationReport(rules, games);
+        var bot = new MoveSearch(catalogue, rules, new FeatureHeuristic(), depth, SEARCH_BUDGET, pool,
+                new TranspositionTable(20));
+
+        int chunks = (games + CHUNK - 1) / CHUNK;
+        var done = new AtomicInteger();
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long[] streaks = new long[SimulationReport.MAX_STREAK + 1];
+            int end = Math.min(games, (chunk + 1) * CHUNK);
+            for(int game = chunk * CHUNK; game < end; game++) {
+                play(game, bot, report, streaks);
+            }
+            report.addStreaks(streaks);
+
+            int finished = done.incrementAndGet();
+            if(finished % Math.max(1, chunks / 20) == 0) {
+                logger.info("Played {} of {} games", Math.min(games, finished * CHUNK), games);
+            }
+        })).join();
+        return report;
+    }
+
+    /**
+     * Play one game to the end, or until the piece limit
+     * @param game index of the game
+     * @param bot the search deciding each move
+     * @param report where to record the outcome
+     * @param streaks counts of runs of each length of pieces clearing lines, added to
+     */
+    private void play(int game, MoveSearch bot, SimulationReport report, long[] streaks) {
+        int count = catalogue.size();
+        PieceSource pieces = bag ? new BagPieceSource(seed + game, count) : new RandomPieceSource(seed + game, count);
+        var engine = new GameEngine(cols, rows, catalogue, pieces, rules);
+        long[] clock = new long[1];
+        engine.setTimeSource(() -> clock[0]);
+        engine.start();
+
+        int placed = 0;
+        int dealt = 0;
+        int lines = 0;
+        int streak = 0;
+        int longest = 0;
+        while(!engine.isGameOver() && dealt < maxPieces) {
+            dealt++;
+
+            //The bot runs out of time if it takes longer to decide than the countdown allows. Lives are not lost in
+            //endless games, so a timeout is seen by the countdown starting again.
+            long deadline = engine.getDeadline();
+            clock[0] += thinkTime;
+            engine.tick();
+            if(engine.getDeadline() != deadline || engine.isGameOver()) {
+                streak = endStreak(streak, streaks);
+                continue;
+            }
+
+            SearchResult move = bot.search(engine);
+            if(move == null) {
+                //Nothing fits anywhere, so the countdown runs out
+                clock[0] = engine.getDeadline();
+                engine.tick();
+                streak = endStreak(streak, streaks);
+                continue;
+            }
+
+            if(move.isSwap()) {
+                engine.swapCurrentPiece();
+            }
+            engine.rotateCurrentPiece(move.getRotation() - engine.getCurrentRotation());
+            engine.place(move.getX(), move.getY());
+            placed++;
+
+            int cleared = engine.getLinesCleared().getLines();
+            lines += cleared;
+            if(cleared > 0) {
+                streak++;
+                longest = Math.max(longest, streak);
+            } else {
+                streak = endStreak(streak, streaks);
+            }
+        }
+        endStreak(streak, streaks);
+
+        report.record(game, engine.getScore(), engine.getLevel(), placed, clock[0] / 1e9, lines, longest,
+                !engine.isGameOver());
+    }
+
+    /**
+     * Count a run of pieces clearing lines which has just ended
+     * @param streak length of the run
+     * @param streaks counts of runs of each length
+     * @return 0, the length of the next run so far
+     */
+    private static int endStreak(int streak, long[] streaks) {
+        if(streak > 0) {
+            streaks[Math.min(streak, SimulationReport.MAX_STREAK)]++;
+        }
+        return 0;
+    }
+
+    /**
+     * Run a simulation from the command line and print its report
+     * @param args options, each given as --name value
+     * @throws IOException if the piece file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for(int i = 0; i < args.length; i++) {
+            if(!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Options must be given as --name value: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+
+        GameRules standard = GameRules.STANDARD;
+        var rules = new GameRules(
+                option(options, "lives", standard.getLives()),
+                option(options, "block-points", standard.getBlockPoints()),
+                option(options, "level-points", standard.getLevelPoints()),
+                option(options, "delay", standard.getInitialDelay()),
+                option(options, "delay-step", standard.getDelayStep()),
+                option(options, "min-delay", standard.getMinimumDelay()));
+        int games = option(options, "games", 100_000);
+        int threads = option(options, "threads", Runtime.getRuntime().availableProcessors());
+        String pieces = options.get("pieces");
+        var simulator = new Simulator(rules,
+                pieces == null ? PieceCatalogue.STANDARD : PieceCatalogue.load(Path.of(pieces)),
+                option(options, "cols", 5),
+                option(options, "rows", 5),
+                option(options, "depth", 1),
+                option(options, "think", 1000) * 1_000_000L,
+                option(options, "max-pieces", 10_000),
+                Long.parseLong(options.getOrDefault("seed", "0")),
+                Boolean.parseBoolean(options.getOrDefault("bag", "false")));
+
+        logger.info("Simulating {} games on {} threads", games, threads);
+        long start = System.nanoTime();
+        SimulationReport report = simulator.run(games, new ForkJoinPool(threads));
+        logger.info("Finished in {}s", (System.nanoTime() - start) / 1_000_000_000);
+        report.print(System.out);
+    }
+
+    /**
+     * Get a whole number option
+     * @param options the options given
+     * @param name name of the option
+     * @param fallback value if the option was not given
+     * @return the value
+     */
+    private static int option(Map<String, String> options, String name, int fallback) {
+        String value = options.get(name);
+        return value == null ? fallback : Integer.parseInt(value);
+    }
+
+}
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.component.GameBlock;
+
+/**
+ * The Block Hovered listener is used to handle the mouse moving onto or off a block in a GameBoard. It passes the
+ * GameBlock the mouse is now over, or null when the mouse has left the block.
+ */
+public interface BlockHoveredListener {
+
+    /**
+     * Handle a block hovered event
+     * @param block the block the mouse is over, or null if the mouse has left the block
+     */
+    public void blockHovered(GameBlock block);
+}
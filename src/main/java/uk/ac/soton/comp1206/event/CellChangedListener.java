@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Cell Changed Listener is used to listen for when the value of a single cell in a Bitboard has changed.
+ */
+public interface CellChangedListener {
+
+    /**
+     * Handle a cell being updated
+     * @param x column of the cell
+     * @param y row of the cell
+     * @param value the new value of the cell
+     */
+    public void cellChanged(int x, int y, int value);
+
+}
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Cell Selected listener is used to handle the mouse clicking or moving onto a cell of a board drawn as a single
+ * canvas, where there is no GameBlock for each cell.
+ */
+public interface CellSelectedListener {
+
+    /**
+     * Handle a cell being selected
+     * @param x column of the cell, or -1 if the mouse has left the board
+     * @param y row of the cell, or -1 if the mouse has left the board
+     */
+    public void cellSelected(int x, int y);
+
+}
@@ -0,0 +1,68 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The events a GameEngine reports to its EngineListener. The listener can query the engine for the state that changed.
+ */
+public enum EngineEvent {
+
+    /**
+     * The current piece was played and any completed lines cleared
+     */
+    PIECE_PLACED,
+
+    /**
+     * The current piece could not be played where it was asked to be
+     */
+    PLACEMENT_FAILED,
+
+    /**
+     * Rows or columns were cleared by the piece just played
+     */
+    LINES_CLEARED,
+
+    /**
+     * The current piece was rotated
+     */
+    PIECE_ROTATED,
+
+    /**
+     * The current and following pieces were swapped
+     */
+    PIECES_SWAPPED,
+
+    /**
+     * A new piece was dealt, so the current and following pieces have changed
+     */
+    NEXT_PIECE,
+
+    /**
+     * The score, level, lives or multiplier changed
+     */
+    STATS_CHANGED,
+
+    /**
+     * The level increased
+     */
+    LEVEL_UP,
+
+    /**
+     * The timer ran out before the current piece was played
+     */
+    LIFE_LOST,
+
+    /**
+     * The timer ran out before the current piece was played in an endless game, where no life is lost
+     */
+    TIMED_OUT,
+
+    /**
+     * The timer was restarted for a new piece
+     */
+    LOOP_STARTED,
+
+    /**
+     * The player has run out of lives
+     */
+    GAME_OVER
+
+}
@@ -0,0 +1,14 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Engine Listener is used to listen for changes to the state of a GameEngine
+ */
+public interface EngineListener {
+
+    /**
+     * Handle an event from the engine
+     * @param event the event which happened
+     */
+    public void engineEvent(EngineEvent event);
+
+}
@@ -1,8 +1,6 @@
 package uk.ac.soton.comp1206.event;
 
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
-
-import java.util.HashSet;
+import uk.ac.soton.comp1206.engine.LineClear;
 
 /**
  * The Line Cleared Listener is used to listen for when row/column(s) have been cleared
@@ -11,8 +9,8 @@ public interface LineClearedListener {
 
     /**
      * Handles the fading of the game blocks after being cleared
-     * @param gameBlockCoordinates Coordinates of blocks which have been cleared
+     * @param cleared The rows and columns which have been cleared
      */
-    public void fadeOut(HashSet<GameBlockCoordinate> gameBlockCoordinates);
+    public void fadeOut(LineClear cleared);
 
 }
@@ -0,0 +1,160 @@
+package uk.ac.soton.comp1206.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Autosave periodically saves a snapshot of a game in progress, so it can be resumed if the game is closed.
+ *
+ * Snapshots are taken on the JavaFX thread, which owns the game, and are only a few dozen bytes. Writing them to disk
+ * is handed to a single background thread, so saving never blocks the UI and saves are written in the order taken.
+ */
+public class Autosave {
+
+    private static final Logger logger = LogManager.getLogger(Autosave.class);
+
+    /**
+     * The file the game is saved to
+     */
+    public static final Path SAVE_FILE = Path.of("autosave.snapshot");
+
+    /**
+     * Time between saves
+     */
+    private static final Duration INTERVAL = Duration.seconds(10);
+
+    /**
+     * Writes saves to disk, one at a time
+     */
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        var thread = new Thread(task, "Autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The autosave currently running, if any
+     */
+    private static Autosave active;
+
+    /**
+     * The game to save
+     */
+    private final Game game;
+
+    /**
+     * Saves the game every interval
+     */
+    private final Timeline timeline;
+
+    /**
+     * Create a new autosave for a game
+     * @param game the game to save
+     */
+    public Autosave(Game game) {
+        this.game = game;
+        this.timeline = new Timeline(new KeyFrame(INTERVAL, event -> save()));
+        timeline.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /**
+     * Start saving the game every interval
+     */
+    public void start() {
+        active = this;
+        timeline.play();
+    }
+
+    /**
+     * Stop saving the game
+     */
+    public void stop() {
+        timeline.stop();
+        if(active == this) {
+            active = null;
+        }
+    }
+
+    /**
+     * Take a snapshot of the game now and write it in the background
+     */
+    public void save() {
+        if(!game.getEngine().isStarted() || game.getEngine().isGameOver()) {
+            return;
+        }
+        byte[] snapshot = game.snapshot();
+        writer.execute(() -> write(snapshot));
+    }
+
+    /**
+     * Save the game being autosaved, if any, and wait for every save to be written. Called when the application exits.
+     */
+    public static void saveOnExit() {
+        if(active != null) {
+            active.save();
+            active.stop();
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the saved game, if there is one
+     * @return the snapshot, or null if there is no saved game
+     */
+    public static byte[] load() {
+        if(!Files.exists(SAVE_FILE)) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(SAVE_FILE);
+        } catch (IOException e) {
+            logger.error("Could not read saved game", e);
+            return null;
+        }
+    }
+
+    /**
+     * Delete the saved game, once any saves already queued have been written
+     */
+    public static void discard() {
+        writer.execute(() -> {
+            try {
+                Files.deleteIfExists(SAVE_FILE);
+            } catch (IOException e) {
+                logger.error("Could not delete saved game", e);
+            }
+        });
+    }
+
+    /**
+     * Write a snapshot to the save file. The snapshot is written to a temporary file first, so a save interrupted
+     * part way through never replaces the last good save.
+     * @param snapshot the snapshot
+     */
+    private static void write(byte[] snapshot) {
+        try {
+            Path temp = SAVE_FILE.resolveSibling(SAVE_FILE.getFileName() + ".tmp");
+            Files.write(temp, snapshot);
+            Files.move(temp, SAVE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Saved game");
+        } catch (IOException e) {
+            logger.error("Could not save game", e);
+        }
+    }
+
+}
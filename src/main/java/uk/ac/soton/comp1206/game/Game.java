@@ -1,25 +1,59 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.*;
-
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBlock;
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.engine.GameClock;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.engine.LineClear;
+import uk.ac.soton.comp1206.engine.MoveJournal;
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.event.EngineEvent;
 import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.LineClearedListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
 
 /**
- * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
- * and to handle actions made by the player should take place inside this class.
+ * The Game class links the TetrECS game to the UI. The rules and state of the game are held by a GameEngine, which
+ * runs without JavaFX; the Game exposes that state as JavaFX properties and listeners, plays sounds and runs the game
+ * timer on the JavaFX thread. Actions made by the player should be passed through this class.
  */
 public class Game {
 
     private static final Logger logger = LogManager.getLogger(Game.class);
 
+    /**
+     * The folder replays are saved to at game over, or null to not save them. Set from the tetrecs.replays system
+     * property, so replays are only saved when asked for.
+     */
+    private static Path replayFolder = System.getProperty("tetrecs.replays") == null
+            ? null : Path.of(System.getProperty("tetrecs.replays"));
+
+    /**
+     * The pieces new games are dealt from. Read from the piece file named by the tetrecs.pieces system property, if set,
+     * so new piece sets can be played without code changes.
+     */
+    private static PieceCatalogue defaultCatalogue = loadCatalogue(System.getProperty("tetrecs.pieces"));
+
+    /**
+     * Writes replays to disk, one at a time, off the JavaFX thread
+     */
+    private static final ExecutorService replayWriter = Executors.newSingleThreadExecutor(task -> {
+        var thread = new Thread(task, "Replay writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Number of rows
      */
@@ -30,6 +64,11 @@ public class Game {
      */
     protected final int cols;
 
+    /**
+     * The engine holding the rules and state of the game
+     */
+    protected final GameEngine engine;
+
     /**
      * The grid model linked to the game
      */
@@ -81,49 +120,71 @@ public class Game {
     private LineClearedListener lineClearedListener;
 
     /**
-     * List of coordinates of blocks cleared
+     * Game loop timer, which ticks the engine on the JavaFX thread when the current piece runs out of time
      */
-    private HashSet<GameBlockCoordinate> blockCoordinateList = new HashSet<>();
+    private final GameClock clock;
 
     /**
-     * Game loop timer
+     * Game loop listener
      */
-    public Timer timer;
+    public GameLoopListener gameLoopListener;
 
     /**
-     * Timer loop task
+     * Create a new game with the specified rows and columns. Creates a corresponding engine and grid model.
+     * @param cols number of columns
+     * @param rows number of rows
      */
-    public TimerTask timerTask;
+    public Game(int cols, int rows) {
+        this(new GameEngine(cols, rows, defaultCatalogue, new RandomPieceSource(defaultCatalogue.size())));
+    }
 
     /**
-     * Holds the state of whether a block has been placed or not for the current loop
+     * Create a new game with the specified rows and columns, dealing pieces from the given seed so the game can be
+     * reproduced
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed for the pieces dealt
      */
-    public boolean placed = true;
+    public Game(int cols, int rows, long seed) {
+        this(new GameEngine(cols, rows, defaultCatalogue, new RandomPieceSource(seed, defaultCatalogue.size())));
+    }
 
     /**
-     * Game loop listener
+     * Create a new game with the specified rows and columns, played by the given rules
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param rules decide scoring, levels, lives and the countdown
      */
-    public GameLoopListener gameLoopListener;
+    public Game(int cols, int rows, GameRules rules) {
+        this(new GameEngine(cols, rows, defaultCatalogue, new RandomPieceSource(defaultCatalogue.size()), rules));
+    }
 
     /**
-     * Create a new game with the specified rows and columns. Creates a corresponding grid model.
-     * @param cols number of columns
-     * @param rows number of rows
+     * Create a new game around the given engine. Creates a grid model viewing the engine's board.
+     * @param engine the engine holding the game state
      */
-    public Game(int cols, int rows) {
-        this.cols = cols;
-        this.rows = rows;
+    protected Game(GameEngine engine) {
+        this.engine = engine;
+        this.cols = engine.getCols();
+        this.rows = engine.getRows();
 
         //Create a new grid model to represent the game state
-        this.grid = new Grid(cols,rows);
+        this.grid = new Grid(engine.getBoard(), engine.getCatalogue());
+
+        this.clock = new GameClock(() -> Platform.runLater(engine::tick));
+
+        engine.setEngineListener(this::engineEvent);
 
+        //Record every action so the game can be replayed from its seed
+        engine.setJournal(new MoveJournal(cols, rows, engine.getSeed(), engine.getRules(),
+                engine.getPieceSource().isBag()));
     }
 
     /**
      * Start the game
      */
     public void start() {
-        logger.info("Starting game");
+        logger.info("Starting game with seed {}", getSeed());
         initialiseGame();
     }
 
@@ -132,12 +193,7 @@ public class Game {
      */
     public void initialiseGame() {
         logger.info("Initialising game");
-
-        followingPiece = spawnPiece();
-
-        gameLoop();
-        gameLoopListener.gameLoop();
-
+        engine.start();
     }
 
     /**
@@ -145,44 +201,155 @@ public class Game {
      * @param gameBlock the block that was clicked
      */
     public void blockClicked(GameBlock gameBlock) {
+        blockClicked(gameBlock.getX(),gameBlock.getY());
+    }
 
-        int[] linesblocks;
-
-        if(grid.canPlayPiece(currentPiece,gameBlock)){
-            grid.playPiece(currentPiece,gameBlock);
-            multimedia.playAudio("sounds/place.wav");
-
-            placed = true;
-
-            timer.cancel();
-            gameLoop();
-            gameLoopListener.gameLoop();
-
-            linesblocks = afterPiece();
-
-            //Index 0 = lines cleared
-            //Index 1 = blocks cleared
-            score(linesblocks[0],linesblocks[1]);
+    /**
+     * Play the current piece centred on the given block, if it fits
+     * @param x column
+     * @param y row
+     */
+    public void blockClicked(int x, int y) {
+        engine.place(x,y);
+    }
 
-            //Calculates the users current multiplier
-            if(linesblocks[0] > 0){
-                multiplier.set(multiplier.get() + 1);
+    /**
+     * Handle a change to the state of the engine, updating properties, playing sounds and calling listeners
+     * @param event the event from the engine
+     */
+    protected void engineEvent(EngineEvent event) {
+        switch (event) {
+            case PIECE_PLACED -> multimedia.playAudio("sounds/place.wav");
+            case PLACEMENT_FAILED -> multimedia.playAudio("sounds/fail.wav");
+            case LINES_CLEARED -> {
+                logger.info("{} lines cleared", engine.getLinesCleared().getLines());
+                fadeOut(engine.getLinesCleared());
+                multimedia.playAudio("sounds/clear.wav");
             }
-            else{
-                multiplier.set(1);
+            case PIECE_ROTATED -> {
+                logger.info("Piece rotated");
+                multimedia.playAudio("sounds/rotate.wav");
+                updatePieces();
             }
-
-            //Calculates the users current level
-            if(score.get()/1000 > level.get()){
-                level.set(score.get()/1000);
+            case PIECES_SWAPPED -> {
+                logger.info("Swapped pieces");
+                multimedia.playAudio("sounds/rotate.wav");
+                updatePieces();
+            }
+            case NEXT_PIECE -> {
+                updatePieces();
+                logger.info("Current Piece {}",currentPiece.toString());
+            }
+            case STATS_CHANGED -> {
+                score.set(engine.getScore());
+                level.set(engine.getLevel());
+                lives.set(engine.getLives());
+                multiplier.set(engine.getMultiplier());
+            }
+            case LEVEL_UP -> {
                 multimedia.playAudio("sounds/level.wav");
                 logger.info("Level increased to {}!",level.get());
             }
+            case LIFE_LOST -> multimedia.playAudio("sounds/lifelose.wav");
+            case TIMED_OUT -> logger.info("Piece ran out of time");
+            case LOOP_STARTED -> {
+                gameLoop();
+                if(gameLoopListener != null){
+                    gameLoopListener.gameLoop();
+                }
+            }
+            case GAME_OVER -> {
+                stopTimer();
+                saveJournal();
+                if(gameLoopListener != null){
+                    gameLoopListener.gameLoop();
+                }
+            }
         }
-        else{
-            multimedia.playAudio("sounds/fail.wav");
+    }
+
+    /**
+     * Load the catalogue new games are dealt from
+     * @param file the piece file, or null for the standard pieces
+     * @return the catalogue, or the standard pieces if the file cannot be loaded
+     */
+    private static PieceCatalogue loadCatalogue(String file){
+        if(file == null){
+            return PieceCatalogue.STANDARD;
+        }
+        try{
+            var catalogue = PieceCatalogue.load(Path.of(file));
+            logger.info("Dealing {} pieces from {}", catalogue.size(), file);
+            return catalogue;
+        } catch (IOException | IllegalArgumentException e){
+            logger.error("Could not load pieces from {}, dealing the standard pieces", file, e);
+            return PieceCatalogue.STANDARD;
         }
+    }
 
+    /**
+     * Set the catalogue new games are dealt from
+     * @param catalogue the catalogue
+     */
+    public static void setDefaultCatalogue(PieceCatalogue catalogue){
+        defaultCatalogue = catalogue;
+    }
+
+    /**
+     * Get the catalogue new games are dealt from
+     * @return the catalogue
+     */
+    public static PieceCatalogue getDefaultCatalogue(){
+        return defaultCatalogue;
+    }
+
+    /**
+     * Set the folder replays are saved to at game over
+     * @param folder the folder, or null to stop saving replays
+     */
+    public static void setReplayFolder(Path folder){
+        replayFolder = folder;
+    }
+
+    /**
+     * Save the journal of this game to the replay folder, if one is set, named after its seed
+     */
+    private void saveJournal(){
+        MoveJournal journal = engine.getJournal();
+        if(journal == null || replayFolder == null){
+            return;
+        }
+
+        //Encode the journal here, as it belongs to this thread, and write it in the background
+        var bytes = new ByteArrayOutputStream();
+        try{
+            journal.write(bytes);
+        } catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+        Path path = replayFolder.resolve(getSeed() + ".replay");
+        int moves = journal.size();
+        replayWriter.execute(() -> {
+            try{
+                Files.createDirectories(path.getParent());
+                Files.write(path, bytes.toByteArray());
+                logger.info("Saved replay of {} moves to {}", moves, path);
+            } catch (IOException e){
+                logger.error("Could not save replay to {}", path, e);
+            }
+        });
+    }
+
+    /**
+     * Update the current and following pieces from the engine and pass them to the listener
+     */
+    private void updatePieces(){
+        currentPiece = GamePiece.createPiece(engine.getCatalogue(),engine.getCurrentPiece(),engine.getCurrentRotation());
+        followingPiece = GamePiece.createPiece(engine.getCatalogue(),engine.getFollowingPiece(),engine.getFollowingRotation());
+
+        if(nextPieceListener != null){
+            nextPieceListener.nextPiece(currentPiece,followingPiece);
+        }
     }
 
     /**
@@ -209,6 +376,49 @@ public class Game {
         this.gameLoopListener = gameLoopListener;
     }
 
+    /**
+     * Get the engine holding the rules and state of this game
+     * @return game engine
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Take a snapshot of the state of this game
+     * @return the snapshot
+     */
+    public byte[] snapshot(){
+        return engine.snapshot();
+    }
+
+    /**
+     * Restore the state of this game from a snapshot taken of a game with the same size and seed
+     * A restored game is no longer journalled, as its journal would not replay from the start
+     * @param snapshot the snapshot
+     */
+    public void restore(byte[] snapshot){
+        logger.info("Restoring game");
+        engine.setJournal(null);
+        engine.restore(snapshot);
+    }
+
+    /**
+     * Get the seed of the pieces dealt in this game
+     * @return the seed
+     */
+    public long getSeed() {
+        return engine.getSeed();
+    }
+
+    /**
+     * Get the catalogue the pieces of this game are dealt from
+     * @return the catalogue
+     */
+    public PieceCatalogue getCatalogue() {
+        return engine.getCatalogue();
+    }
+
     /**
      * Get the grid model inside this game representing the game state of the board
      * @return game grid model
@@ -233,19 +443,6 @@ public class Game {
         return rows;
     }
 
-    /**
-     * Creates a new GamePiece
-     * @return New GamePiece
-     */
-    public GamePiece spawnPiece(){
-
-        Random random = new Random();
-
-        //Creates a new GamePiece to be placed
-        return GamePiece.createPiece(random.nextInt(15));
-
-    }
-
     /**
      * Creates a specific new GamePiece
      * @param piece piece
@@ -254,7 +451,7 @@ public class Game {
     public GamePiece spawnPiece(int piece){
 
         //Creates a new GamePiece to be placed
-        return GamePiece.createPiece(piece);
+        return GamePiece.createPiece(engine.getCatalogue(),piece,0);
 
     }
 
@@ -306,172 +503,29 @@ public class Game {
         return this.multiplier;
     }
 
-    /**
-     * Current and following GamePiece is generated
-     * Passed to listener to update the grids
-     */
-    private void nextPiece(){
-
-        currentPiece = followingPiece;
-        followingPiece = spawnPiece();
-
-        logger.info("Current Piece {}",currentPiece.toString());
-
-        if(nextPieceListener != null){
-            nextPieceListener.nextPiece(currentPiece,followingPiece);
-        }
-    }
-
     /**
      * Calls the fade method whenever lines have been cleared
-     * @param gameBlockCoordinates Hashset of block coordinates
+     * @param cleared The lines cleared
      */
-    public void fadeOut(HashSet<GameBlockCoordinate> gameBlockCoordinates){
+    public void fadeOut(LineClear cleared){
         if(lineClearedListener != null){
-            lineClearedListener.fadeOut(gameBlockCoordinates);
+            lineClearedListener.fadeOut(cleared);
         }
     }
 
-    /**
-     * Checks every row and column and clears the values if line made
-     * @return The array containing the number of lines and blocks cleared
-     */
-    public int[] afterPiece(){
-
-        List<Integer> columnVal = new ArrayList<>(); //Stores column numbers to clear
-        List<Integer> rowVal = new ArrayList<>(); //Stores row numbers to clear
-
-        int[] linesBlocks = {0,0}; //The total number of lines and blocks cleared. Index 0 = Lines cleared. Index 1 = Blocks cleared.
-
-        for(int row=0;row<rows;row++){
-            for(int col=0;col<cols;col++){
-                if(grid.get(row,col) == 0){
-                    break;
-                }
-                else if(col == cols-1){
-                    columnVal.add(row);
-                }
-            }
-        }
-
-        for(int col=0;col<cols;col++){
-            for(int row=0;row<rows;row++){
-                if(grid.get(row,col) == 0){
-                    break;
-                }
-                else if(row == rows-1){
-                    rowVal.add(col);
-                }
-            }
-        }
-
-        for(int i=0;i<rowVal.size();i++){
-            linesBlocks[1] += clearRow(rowVal.get(i));
-            linesBlocks[0]++;
-        }
-
-        for(int i=0;i<columnVal.size();i++){
-            linesBlocks[1] += clearColumn(columnVal.get(i));
-            linesBlocks[0]++;
-        }
-
-        //Fades out all the blocks which have been cleared
-        fadeOut(blockCoordinateList);
-        blockCoordinateList.clear();
-
-        //Sound is played if any lines are cleared
-        if (linesBlocks[0]!=0 || linesBlocks[1] != 0){
-            multimedia.playAudio("sounds/clear.wav");
-        }
-
-        return linesBlocks;
-
-    }
-
-    /**
-     * Each row in the column is iterated and set to 0
-     * @param col Column to be cleared
-     * @return number of blocks cleared
-     */
-    public int clearRow(int col){
-
-        int blocks = 0; //Number of blocks cleared
-
-        for(int i=0;i<rows;i++){
-            if(grid.get(i,col) > 0){
-                blockCoordinateList.add(new GameBlockCoordinate(i,col));
-                blocks++;
-                grid.set(i,col,0);
-            }
-        }
-
-        logger.info("Row cleared");
-        return blocks;
-
-    }
-
-    /**
-     * Each column in the row is iterated and set to 0
-     * @param row Row to be cleared
-     * @return number of blocks cleared
-     */
-    public int clearColumn(int row){
-
-        int blocks = 0; //Number of blocks cleared
-
-        for(int i=0;i<cols;i++){
-            if(grid.get(row,i) > 0){
-                blockCoordinateList.add(new GameBlockCoordinate(row,i));
-                blocks++;
-                grid.set(row,i,0);
-            }
-
-        }
-
-        logger.info("Column cleared");
-        return blocks;
-
-    }
-
-    /**
-     * Calculates the score from a single move
-     * @param lines lines cleared
-     * @param blocks blocks cleared
-     */
-    public void score(int lines, int blocks){
-
-        if(blocks > 0){
-            int add = lines*blocks*10*getMultiplier();
-            score.set(score.get() + add);
-
-            logger.info("{} added to score", add);
-            logger.info("Current score {}",score.get());
-
-        }
-
-    }
-
     /**
      * Rotates the current game piece
      * @param rotations Number of tiems to rotate the piece
      */
     public void rotateCurrentPiece(int rotations){
-        logger.info("Piece rotated");
-        currentPiece.rotate(rotations);
-        multimedia.playAudio("sounds/rotate.wav");
-        nextPieceListener.nextPiece(currentPiece,followingPiece);
+        engine.rotateCurrentPiece(rotations);
     }
 
     /**
      * The current piece and following piece are swapped
      */
     public void swapCurrentPiece(){
-        logger.info("Swapped pieces");
-        multimedia.playAudio("sounds/rotate.wav");
-        GamePiece temp = followingPiece;
-        followingPiece = currentPiece;
-        currentPiece = temp;
-        nextPieceListener.nextPiece(currentPiece,followingPiece);
+        engine.swapCurrentPiece();
     }
 
     /**
@@ -488,56 +542,70 @@ public class Game {
     }
 
     /**
-     * Calculates the timer duration
-     * Delay must be at least 2500
+     * Calculates the timer duration at the current level, by the rules of the game
      * @return Timer delay
      */
     public int getTimerDelay(){
+        return engine.getTimerDelay();
+    }
 
-        int temp = 12000-500*level.get(); //Calculated delay
-
-        return Math.max(temp, 2500);
+    /**
+     * Get the time left before the current piece runs out of time
+     * @return time left in nanoseconds
+     */
+    public long getTimeRemaining(){
+        return engine.getTimeRemaining();
+    }
 
+    /**
+     * Get the length of the current countdown
+     * @return countdown length in nanoseconds
+     */
+    public long getLoopLength(){
+        return engine.getLoopLength();
     }
 
     /**
      * Timer for the game
-     * Decrements lives and resets multiplier if timer has finished
-     * Next piece is shown
+     * Schedules the engine to be ticked when the current piece runs out of time
      */
     public void gameLoop(){
+        if(!engine.isPaused()){
+            clock.schedule(engine.getDeadline());
+        }
+    }
 
-        timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                Platform.runLater(() -> {
-                    if(placed){
-                        placed = false;
-                    }
-                    else{
-                        multimedia.playAudio("sounds/lifelose.wav");
-                        multiplier.set(1);
-                        lives.set(lives.get()-1);
-                        gameLoopListener.gameLoop();
-                    }
-
-                    nextPiece();
-
-                });
-                logger.info("Time reset");
-            }
-        };
+    /**
+     * Pauses the game timer
+     */
+    public void pause(){
+        logger.info("Pausing game");
+        engine.pause();
+        clock.cancel();
+    }
 
-        timer = new Timer();
-        timer.scheduleAtFixedRate(timerTask,0,getTimerDelay());
+    /**
+     * Resumes the game timer from where it was paused
+     */
+    public void resume(){
+        logger.info("Resuming game");
+        engine.resume();
+        clock.schedule(engine.getDeadline());
+    }
 
+    /**
+     * Check whether the game timer is paused
+     * @return true if paused
+     */
+    public boolean isPaused(){
+        return engine.isPaused();
     }
 
     /**
      * Current timer is stopped
      */
     public void stopTimer(){
-        timer.cancel();
+        clock.cancel();
     }
 
 }
@@ -1,167 +1,106 @@
 package uk.ac.soton.comp1206.game;
 
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.PieceShape;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Instances of GamePiece Represents the model of a specific Game Piece with it's block makeup.
  *
+ * A GamePiece is an immutable pairing of a shape from a piece catalogue with a rotation. There is only ever one
+ * instance of each piece of each catalogue in each rotation, so creating and rotating pieces does not allocate.
+ *
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
- * number.
+ * catalogue and number.
  */
 public class GamePiece {
 
     /**
-     * The total number of pieces in this game
+     * The total number of pieces in the standard catalogue
      */
-    public static final int PIECES = 15;
+    public static final int PIECES = PieceCatalogue.STANDARD.size();
 
     /**
-     * The 2D grid representation of the shape of this piece
+     * Every piece of each catalogue used so far in every rotation, indexed by piece number and then rotation
      */
-    private int[][] blocks;
+    private static final Map<PieceCatalogue, GamePiece[][]> catalogues = new ConcurrentHashMap<>();
 
     /**
-     * The value of this piece
+     * The catalogue this piece belongs to
      */
-    private final int value;
+    private final PieceCatalogue catalogue;
 
     /**
-     * The name of this piece
+     * The shape of this piece
      */
-    private final String name;
+    private final PieceShape shape;
 
     /**
-     * Create a new GamePiece of the specified piece number
+     * The number of times this piece has been rotated, from 0 to 3
+     */
+    private final int rotation;
+
+    /**
+     * Get the GamePiece of the specified piece number in the standard catalogue
      * @param piece piece number
-     * @return the created GamePiece
+     * @return the GamePiece
      */
     public static GamePiece createPiece(int piece) {
-        switch (piece) {
-            //Line
-            case 0 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Line", blocks, 1);
-            }
-
-            //C
-            case 1 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
-                return new GamePiece("C", blocks, 2);
-            }
-
-            //Plus
-            case 2 -> {
-                int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
-                return new GamePiece("Plus", blocks, 3);
-            }
-
-            //Dot
-            case 3 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Dot", blocks, 4);
-            }
-
-            //Square
-            case 4 -> {
-                int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Square", blocks, 5);
-            }
-
-            //L
-            case 5 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
-                return new GamePiece("L", blocks, 6);
-            }
-
-            //J
-            case 6 -> {
-                int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("J", blocks, 7);
-            }
-
-            //S
-            case 7 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
-                return new GamePiece("S", blocks, 8);
-            }
-
-            //Z
-            case 8 -> {
-                int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Z", blocks, 9);
-            }
-
-            //T
-            case 9 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("T", blocks, 10);
-            }
-
-            //X
-            case 10 -> {
-                int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
-                return new GamePiece("X", blocks, 11);
-            }
-
-            //Corner
-            case 11 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("Corner", blocks, 12);
-            }
-
-            //Inverse Corner
-            case 12 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Inverse Corner", blocks, 13);
-            }
-
-            //Diagonal
-            case 13 -> {
-                int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
-                return new GamePiece("Diagonal", blocks, 14);
-            }
-
-            //Double
-            case 14 -> {
-                int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Double", blocks, 15);
-            }
-        }
-
-        //Not a valid piece number
-        throw new IndexOutOfBoundsException("No such piece: " + piece);
+        return createPiece(PieceCatalogue.STANDARD, piece, 0);
     }
 
     /**
-     * Create a new GamePiece of the specified piece number and rotation
+     * Get the GamePiece of the specified piece number and rotation in the standard catalogue
      * @param piece piece number
      * @param rotation number of times to rotate
-     * @return the created GamePiece
+     * @return the GamePiece
      */
     public static GamePiece createPiece(int piece, int rotation) {
-        var newPiece = createPiece(piece);
-
-        newPiece.rotate(rotation);
-        return newPiece;
+        return createPiece(PieceCatalogue.STANDARD, piece, rotation);
     }
 
     /**
-     * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
-     * factory.
-     * @param name name of the piece
-     * @param blocks block makeup of the piece
-     * @param value the value of this piece
+     * Get the GamePiece of the specified piece number and rotation in a catalogue
+     * @param catalogue the catalogue the piece is dealt from
+     * @param piece piece number
+     * @param rotation number of times to rotate
+     * @return the GamePiece
      */
-    private GamePiece(String name, int[][] blocks, int value) {
-        this.name = name;
-        this.blocks = blocks;
-        this.value = value;
+    public static GamePiece createPiece(PieceCatalogue catalogue, int piece, int rotation) {
+        if(piece < 0 || piece >= catalogue.size()) {
+            //Not a valid piece number
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        return catalogues.computeIfAbsent(catalogue, GamePiece::createPieces)[piece][Math.floorMod(rotation, 4)];
+    }
 
-        //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
-        for(int x = 0; x < blocks.length; x++) {
-            for (int y = 0; y < blocks[x].length; y++) {
-                if(blocks[x][y] == 0) continue;
-                blocks[x][y] = value;
+    /**
+     * Create every piece of a catalogue in every rotation
+     * @param catalogue the catalogue
+     * @return the pieces, indexed by piece number and then rotation
+     */
+    private static GamePiece[][] createPieces(PieceCatalogue catalogue) {
+        var pieces = new GamePiece[catalogue.size()][4];
+        for(int piece = 0; piece < catalogue.size(); piece++) {
+            for(int rotation = 0; rotation < 4; rotation++) {
+                pieces[piece][rotation] = new GamePiece(catalogue, catalogue.get(piece), rotation);
             }
         }
+        return pieces;
+    }
+
+    /**
+     * Create a new GamePiece with the given shape and rotation. Should not be called directly, only via the factory.
+     * @param catalogue the catalogue the shape belongs to
+     * @param shape shape of the piece
+     * @param rotation rotation of the piece
+     */
+    private GamePiece(PieceCatalogue catalogue, PieceShape shape, int rotation) {
+        this.catalogue = catalogue;
+        this.shape = shape;
+        this.rotation = rotation;
     }
 
     /**
@@ -169,56 +108,56 @@ public class GamePiece {
      * @return piece value
      */
     public int getValue() {
-        return value;
+        return shape.getValue();
     }
 
     /**
-     * Get the block makeup of this piece
-     * @return 2D grid of the blocks representing the piece shape
+     * Get the piece number of this piece
+     * @return piece number
      */
-    public int[][] getBlocks() {
-        return blocks;
+    public int getPiece() {
+        return shape.getId();
     }
 
     /**
-     * Rotate this piece the given number of rotations
-     * @param rotations number of rotations
+     * Get the number of times this piece has been rotated
+     * @return rotation, from 0 to 3
      */
-    public void rotate(int rotations) {
-        for(int rotated = 0; rotated < rotations; rotated ++) {
-            rotate();
-        }
+    public int getRotation() {
+        return rotation;
     }
 
     /**
-     * Rotate this piece exactly once by rotating it's 3x3 grid
+     * Get the shape of this piece in its current rotation, as a shape index into the piece catalogue
+     * @return shape index
      */
-    public void rotate() {
-        int[][] rotated = new int[blocks.length][blocks[0].length];
-        rotated[2][0] = blocks[0][0];
-        rotated[1][0] = blocks[0][1];
-        rotated[0][0] = blocks[0][2];
-
-        rotated[2][1] = blocks[1][0];
-        rotated[1][1] = blocks[1][1];
-        rotated[0][1] = blocks[1][2];
-
-        rotated[2][2] = blocks[2][0];
-        rotated[1][2] = blocks[2][1];
-        rotated[0][2] = blocks[2][2];
+    public int getShape() {
+        return shape.getId() * 4 + rotation;
+    }
 
-        blocks = rotated;
+    /**
+     * Get the block makeup of this piece. The array is shared and must not be modified.
+     * @return 2D grid of the blocks representing the piece shape
+     */
+    public int[][] getBlocks() {
+        return shape.getBlocks(rotation);
     }
 
+    /**
+     * Get this piece rotated the given number of rotations
+     * @param rotations number of rotations
+     * @return the rotated piece
+     */
+    public GamePiece rotated(int rotations) {
+        return createPiece(catalogue, shape.getId(), rotation + rotations);
+    }
 
     /**
      * Return the string representation of this piece
      * @return the name of this piece
      */
     public String toString() {
-        return this.name;
+        return shape.getName();
     }
 
-
-
 }
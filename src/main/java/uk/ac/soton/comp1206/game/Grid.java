@@ -1,17 +1,24 @@
 package uk.ac.soton.comp1206.game;
 
+import java.util.ArrayList;
+import java.util.List;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.engine.Bitboard;
+import uk.ac.soton.comp1206.engine.LineClear;
+import uk.ac.soton.comp1206.engine.PieceCatalogue;
+import uk.ac.soton.comp1206.engine.PlacementTable;
+import uk.ac.soton.comp1206.event.CellChangedListener;
 
 /**
- * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
- * arrow, with rows and columns.
+ * The Grid is a model which holds the state of a game board. The values themselves are held in a Bitboard, arranged in
+ * rows and columns.
  *
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
- * the grid.
+ * The Grid can also provide an IntegerProperty for each value, which can be bound to enable display of the contents of
+ * the grid. These properties are only created when first requested, and are kept up to date with the Bitboard.
  *
  * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
  *
@@ -30,31 +37,101 @@ public class Grid {
     private final int rows;
 
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The primitive board holding the value of every block
      */
-    private final SimpleIntegerProperty[][] grid;
+    private final Bitboard board;
+
+    /**
+     * The observable view of the board, a 2D array of SimpleIntegerProperties. Null until a property is requested.
+     */
+    private SimpleIntegerProperty[][] grid;
+
+    /**
+     * The listeners to call when a block changes value. Each will be told of every change.
+     */
+    private final List<CellChangedListener> cellChangedListeners = new ArrayList<>();
+
+    /**
+     * The placement table for the size of this grid
+     */
+    private final PlacementTable placementTable;
+
+    /**
+     * The rows covered by pieces played since lines were last cleared
+     */
+    private long rowsPlayed;
+
+    /**
+     * The columns covered by pieces played since lines were last cleared
+     */
+    private long colsPlayed;
 
     private static final Logger logger = LogManager.getLogger(Grid.class);
 
     /**
-     * Create a new Grid with the specified number of columns and rows and initialise them
+     * Create a new Grid with the specified number of columns and rows and initialise them, for pieces from the standard
+     * catalogue
      * @param cols number of columns
      * @param rows number of rows
      */
     public Grid(int cols, int rows) {
-        this.cols = cols;
-        this.rows = rows;
+        this(new Bitboard(cols, rows), PieceCatalogue.STANDARD);
+    }
 
-        //Create the grid itself
+    /**
+     * Create a new Grid which provides a view of an existing Bitboard
+     * @param board the board to view
+     * @param catalogue the catalogue of the pieces played on the grid
+     */
+    public Grid(Bitboard board, PieceCatalogue catalogue) {
+        this.board = board;
+        this.cols = board.getCols();
+        this.rows = board.getRows();
+
+        //The placement table is shared between grids of the same size
+        this.placementTable = catalogue.getPlacementTable(cols, rows);
+    }
+
+    /**
+     * Create the observable view of the board, with a SimpleIntegerProperty for every block, and keep it up to date
+     * when the board changes
+     */
+    private void createView() {
         grid = new SimpleIntegerProperty[cols][rows];
 
         //Add a SimpleIntegerProperty to every block in the grid
         for(var y = 0; y < rows; y++) {
             for(var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
+                grid[x][y] = new SimpleIntegerProperty(board.get(x, y));
             }
         }
 
+        board.setOnCellChanged(this::cellChanged);
+    }
+
+    /**
+     * Add a listener to handle an event when a block changes value. Can be used alongside the properties and any other
+     * listeners.
+     * @param listener listener to add
+     */
+    public void addCellChangedListener(CellChangedListener listener) {
+        cellChangedListeners.add(listener);
+        board.setOnCellChanged(this::cellChanged);
+    }
+
+    /**
+     * Pass a change to a block of the board on to its property, if created, and every listener
+     * @param x column
+     * @param y row
+     * @param value the new value
+     */
+    private void cellChanged(int x, int y, int value) {
+        if(grid != null) {
+            grid[x][y].set(value);
+        }
+        for(int i = 0; i < cellChangedListeners.size(); i++) {
+            cellChangedListeners.get(i).cellChanged(x, y, value);
+        }
     }
 
     /**
@@ -64,9 +141,20 @@ public class Grid {
      * @return the IntegerProperty at the given x and y in this grid
      */
     public IntegerProperty getGridProperty(int x, int y) {
+        if(grid == null) {
+            createView();
+        }
         return grid[x][y];
     }
 
+    /**
+     * Get the primitive board holding the values of this grid
+     * @return the bitboard
+     */
+    public Bitboard getBitboard() {
+        return board;
+    }
+
     /**
      * Update the value at the given x and y index within the grid
      * @param x column
@@ -74,23 +162,17 @@ public class Grid {
      * @param value the new value
      */
     public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+        board.set(x, y, value);
     }
 
     /**
      * Get the value represented at the given x and y index within the grid
      * @param x column
      * @param y row
-     * @return the value
+     * @return the value, or -1 if there is no such index
      */
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
-            //No such index
-            return -1;
-        }
+        return board.get(x, y);
     }
 
     /**
@@ -109,6 +191,14 @@ public class Grid {
         return rows;
     }
 
+    /**
+     * Get the Zobrist hash of the filled blocks of this grid, which is updated as blocks are set and cleared
+     * @return the hash
+     */
+    public long getHash() {
+        return board.getHash();
+    }
+
     /**
      * Checks whether a block can be placed on the grid or not
      * @param gamePiece The piece to be placed
@@ -116,55 +206,41 @@ public class Grid {
      * @return True or False depending on if the block placement is valid
      */
     public boolean canPlayPiece(GamePiece gamePiece,GameBlock gameBlock){
+        return canPlayPiece(gamePiece,gameBlock.getX(),gameBlock.getY());
+    }
 
-        int locationX = gameBlock.getX(); //X coordinate
-        int locationY = gameBlock.getY(); //Y coordinate
-
-        //Checks the 3x3 area surrounding the game block clicked
-        for(int x=0;x<3;x++){
-            for(int y=0;y<3;y++){
-                    if(gamePiece.getBlocks()[y][x] > 0){
-                        try{
-                            if(grid[locationX-1+x][locationY-1+y].get() != 0){
-                                logger.info("Not a free space");
-                                return false;
-                            }
-                        }
-                        catch (Exception e){
-                            logger.info("Outside play area");
-                            return false;
-                        }
-                    }
-            }
-        }
-
-        logger.info("Block position is valid");
-        return true;
-
+    /**
+     * Checks whether a piece can be placed centred on the given block
+     * @param gamePiece The piece to be placed
+     * @param x column
+     * @param y row
+     * @return Whether the piece can be placed or not
+     */
+    public boolean canPlayPiece(GamePiece gamePiece, int x, int y){
+        return placementTable.canPlace(board,gamePiece.getShape(),x,y);
     }
 
     /**
-     * Get the value represented at the given x and y index within the grid
+     * Places a piece centred on the given block. The placement should already have been checked with canPlayPiece.
      * @param gamePiece The piece to be placed
      * @param gameBlock The block that was clicked
      */
     public void playPiece(GamePiece gamePiece, GameBlock gameBlock) {
+        placementTable.place(board,gamePiece.getShape(),gameBlock.getX(),gameBlock.getY(),gamePiece.getValue());
 
-        int locationX = gameBlock.getX(); //X coordinate
-        int locationY = gameBlock.getY(); //Y coordinate
-
-        for(int x=0;x<3;x++){
-            for(int y=0;y<3;y++){
-                try{
-                    if(gamePiece.getBlocks()[y][x] > 0){
-                        grid[locationX-1+x][locationY-1+y].set(gamePiece.getValue());
-                    }
-                }
-                catch(Exception ignored){
-                }
-            }
-        }
+        //Remember the lines this piece covers, as only these can have been completed
+        rowsPlayed |= placementTable.rowsCovered(gamePiece.getShape(),gameBlock.getY());
+        colsPlayed |= placementTable.columnsCovered(gamePiece.getShape(),gameBlock.getX());
+    }
 
+    /**
+     * Clears every row and column completed by the pieces played since this was last called
+     * @param cleared filled in with the lines and number of blocks cleared
+     */
+    public void clearLines(LineClear cleared) {
+        board.clearLines(rowsPlayed,colsPlayed,cleared);
+        rowsPlayed = 0;
+        colsPlayed = 0;
     }
 
 }
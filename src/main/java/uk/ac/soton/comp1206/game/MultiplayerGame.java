@@ -3,25 +3,35 @@ package uk.ac.soton.comp1206.game;
 import javafx.application.Platform;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.event.EngineEvent;
 import uk.ac.soton.comp1206.network.Communicator;
 
-import java.util.LinkedList;
 import java.util.Queue;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
- * Creates a new multiplayer game extending from Game
+ * Creates a new multiplayer game extending from Game. Pieces are dealt in the order given by the server.
  */
 public class MultiplayerGame extends Game{
 
     private static final Logger logger = LogManager.getLogger(MultiplayerGame.class);
 
-    private Queue<GamePiece> pieceQueue = new LinkedList<>();
+    /**
+     * Number of pieces requested from the server before the game starts. Two are dealt at the start, the rest are kept
+     * spare so a piece is ready when the next one is requested.
+     */
+    private static final int PIECES_AHEAD = 3;
+
+    private final Queue<Integer> pieceQueue = new ConcurrentLinkedQueue<>();
+    private final Random random = new Random();
     private Communicator communicator;
 
     private boolean first = true;
 
+    private int sentScore = 0;
+
     /**
      * Create a new game with the specified rows and columns. Creates a corresponding grid model.
      * @param cols number of columns
@@ -29,12 +39,18 @@ public class MultiplayerGame extends Game{
      * @param communicator The communicator for the current game
      */
     public MultiplayerGame(int cols, int rows, Communicator communicator) {
-        super(cols, rows);
+        //The server deals piece numbers from the standard pieces
+        super(new GameEngine(cols, rows));
         this.communicator = communicator;
+        engine.setPieceSource(this::nextQueuedPiece);
+
+        //Pieces come from the server rather than a seed, so the game cannot be replayed
+        engine.setJournal(null);
     }
 
     /**
-     * Initialises a new game, and anything that needs setting up from the beginning.
+     * Initialises a new game, and anything that needs setting up from the beginning. The engine is started once the
+     * first pieces have arrived from the server.
      */
     @Override
     public void initialiseGame(){
@@ -42,34 +58,33 @@ public class MultiplayerGame extends Game{
         communicator.addListener((message) -> {
             String[] messageSplit = message.split(" "); //Message from communicator is seperated. The identifier and the actual message contents
             if(messageSplit[0].equals("PIECE")){
-                pieceQueue.add(spawnPiece(Integer.parseInt(messageSplit[1])));
-                if(first){
-                    followingPiece = pieceQueue.remove();
+                pieceQueue.add(Integer.parseInt(messageSplit[1]));
+                if(first && pieceQueue.size() >= 2){
                     first = false;
-                    callPiece();
+                    Platform.runLater(super::initialiseGame);
                 }
-                nextPiece();
             }
         });
 
-        gameLoop();
-        gameLoopListener.gameLoop();
+        for(int i = 0; i < PIECES_AHEAD; i++){
+            callPiece();
+        }
     }
 
     /**
-     * The following piece is set as the current piece
-     * And the following piece is obtained via the piece queue
+     * Takes the next piece from the piece queue and asks the server for another to replace it
+     * @return piece number
      */
-    public void nextPiece(){
-
-        currentPiece = followingPiece;
-        followingPiece = pieceQueue.remove();
+    private int nextQueuedPiece(){
 
-        logger.info("Current Piece {}",currentPiece.toString());
+        callPiece();
 
-        if(nextPieceListener != null){
-            nextPieceListener.nextPiece(currentPiece,followingPiece);
+        Integer piece = pieceQueue.poll();
+        if(piece == null){
+            logger.warn("No piece received from the server yet, dealing a random piece");
+            return random.nextInt(engine.getCatalogue().size());
         }
+        return piece;
 
     }
 
@@ -83,69 +98,22 @@ public class MultiplayerGame extends Game{
     }
 
     /**
-     * Timer for the game
-     * Decrements lives and resets multiplier if timer has finished
-     * Next piece is shown
+     * Handle a change to the state of the engine, also keeping the server up to date with the board and score
+     * @param event the event from the engine
      */
     @Override
-    public void gameLoop(){
-
-        timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                Platform.runLater(() -> {
-                    if(placed){
-                        placed = false;
-                        sendBoardState();
-                    }
-                    else{
-                        multimedia.playAudio("sounds/lifelose.wav");
-                        multiplier.set(multiplier.get()-1);
-                        lives.set(lives.get()-1);
-                        gameLoopListener.gameLoop();
-                    }
-                    if(!(lives.get()<0)){
-                        callPiece();
-                    }
-
-
-                });
-                logger.info("Time reset");
+    protected void engineEvent(EngineEvent event){
+        super.engineEvent(event);
+
+        switch (event) {
+            case PIECE_PLACED -> sendBoardState();
+            case STATS_CHANGED -> {
+                if(engine.getScore() != sentScore){
+                    sentScore = engine.getScore();
+                    communicator.send("SCORE " + sentScore);
+                }
             }
-        };
-
-        timer = new Timer();
-        timer.scheduleAtFixedRate(timerTask,0,getTimerDelay());
-
-    }
-
-    /**
-     * Stops game timer
-     */
-    @Override
-    public void stopTimer(){
-        timer.cancel();
-    }
-
-    /**
-     * Calculates the score from a single move
-     * @param lines lines cleared
-     * @param blocks blocks cleared
-     */
-    @Override
-    public void score(int lines, int blocks){
-
-        if(blocks > 0){
-            int add = lines*blocks*10*getMultiplier();
-            score.set(score.get() + add);
-
-            communicator.send("SCORE " + score.getValue());
-
-            logger.info("{} added to score", add);
-            logger.info("Current score {}",score.get());
-
         }
-
     }
 
     /**
@@ -0,0 +1,133 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.Arrays;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.engine.RecordingPieceSource;
+import uk.ac.soton.comp1206.engine.UndoHistory;
+
+/**
+ * A practice game is an untimed game where every placement, rotation and swap can be undone and redone.
+ */
+public class PracticeGame extends Game {
+
+    private static final Logger logger = LogManager.getLogger(PracticeGame.class);
+
+    /**
+     * Snapshots of the game after each action
+     */
+    private final UndoHistory history;
+
+    /**
+     * Create a new practice game with the specified rows and columns
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public PracticeGame(int cols, int rows) {
+        super(new GameEngine(cols, rows, getDefaultCatalogue(),
+                new RecordingPieceSource(new RandomPieceSource(getDefaultCatalogue().size()))));
+        history = new UndoHistory(engine);
+
+        //Undoing moves would leave the journal out of step with the game
+        engine.setJournal(null);
+    }
+
+    /**
+     * Start the game with the timer paused and record the starting state
+     */
+    @Override
+    public void initialiseGame() {
+        super.initialiseGame();
+        pause();
+        history.record();
+    }
+
+    /**
+     * Play the current piece, recording the game if it was played
+     * @param x column
+     * @param y row
+     */
+    @Override
+    public void blockClicked(int x, int y) {
+        if(engine.place(x,y)){
+            history.record();
+        }
+    }
+
+    /**
+     * Rotate the current piece and record the game, if the piece now has a different shape
+     * @param rotations Number of times to rotate the piece
+     */
+    @Override
+    public void rotateCurrentPiece(int rotations) {
+        int piece = engine.getCurrentPiece();
+        int rotation = engine.getCurrentRotation();
+        super.rotateCurrentPiece(rotations);
+        if(!sameShape(piece, rotation, engine.getCurrentPiece(), engine.getCurrentRotation())){
+            history.record();
+        }
+    }
+
+    /**
+     * Swap the current and following pieces and record the game, if the current piece now has a different shape
+     */
+    @Override
+    public void swapCurrentPiece() {
+        int piece = engine.getCurrentPiece();
+        int rotation = engine.getCurrentRotation();
+        super.swapCurrentPiece();
+        if(!sameShape(piece, rotation, engine.getCurrentPiece(), engine.getCurrentRotation())){
+            history.record();
+        }
+    }
+
+    /**
+     * Check whether two pieces in two rotations look and play the same, so changing from one to the other would add a
+     * step to the history that undoes nothing
+     * @param piece the first piece number
+     * @param rotation the first rotation
+     * @param otherPiece the second piece number
+     * @param otherRotation the second rotation
+     * @return true if they are the same piece in rotations giving the same shape
+     */
+    private boolean sameShape(int piece, int rotation, int otherPiece, int otherRotation) {
+        if(piece != otherPiece){
+            return false;
+        }
+        if(piece < 0 || rotation == otherRotation){
+            return true;
+        }
+        var shape = engine.getCatalogue().get(piece);
+        return Arrays.equals(shape.getMasks(rotation), shape.getMasks(otherRotation));
+    }
+
+    /**
+     * Practice games are untimed, so the timer is never resumed
+     */
+    @Override
+    public void resume() {
+    }
+
+    /**
+     * Undo the last action
+     */
+    public void undo() {
+        if(history.undo()){
+            logger.info("Undo");
+            multimedia.playAudio("sounds/rotate.wav");
+        }
+    }
+
+    /**
+     * Redo the last action undone
+     */
+    public void redo() {
+        if(history.redo()){
+            logger.info("Redo");
+            multimedia.playAudio("sounds/rotate.wav");
+        }
+    }
+
+}
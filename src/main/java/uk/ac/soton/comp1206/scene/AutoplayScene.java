@@ -0,0 +1,228 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Pos;
+import javafx.scene.text.Text;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.search.MoveSearch;
+import uk.ac.soton.comp1206.engine.search.SearchResult;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+/**
+ * The autoplay scene. A bot plays the challenge through the same game methods as the player, at a speed which can be
+ * changed while it plays. When a game ends the next one starts straight away, so it can be left running unattended to
+ * show whether anything builds up over thousands of moves.
+ */
+public class AutoplayScene extends ChallengeScene {
+
+    private static final Logger logger = LogManager.getLogger(AutoplayScene.class);
+
+    /**
+     * The speeds the bot can play at, in moves per second, where 0 plays as fast as the game allows
+     */
+    public static final int[] SPEEDS = {1, 2, 5, 10, 20, 60, 0};
+
+    /**
+     * The speed the bot starts at, as an index into SPEEDS
+     */
+    public static final int DEFAULT_SPEED = 2;
+
+    /**
+     * Longest the bot may spend playing moves in each frame, in nanoseconds, so the window keeps drawing
+     */
+    private static final long FRAME_BUDGET = 8_000_000L;
+
+    /**
+     * Number of games played since the application started
+     */
+    private static int gamesPlayed;
+
+    /**
+     * Number of moves played since the application started
+     */
+    private static long movesPlayed;
+
+    /**
+     * Finds each move the bot plays
+     */
+    private MoveSearch bot;
+
+    /**
+     * The current speed, as an index into SPEEDS
+     */
+    private int speed;
+
+    /**
+     * Plays the bot's moves each frame
+     */
+    private AnimationTimer botTimer;
+
+    /**
+     * Shows the current speed
+     */
+    private Text controls;
+
+    /**
+     * Create a new autoplay scene
+     * @param gameWindow the Game Window
+     * @param speed the speed to play at, as an index into SPEEDS
+     */
+    public AutoplayScene(GameWindow gameWindow, int speed) {
+        super(gameWindow);
+        this.speed = speed;
+    }
+
+    /**
+     * Set up a new game for the bot, never resuming a saved one
+     */
+    @Override
+    public void setupGame(){
+        logger.info("Starting a new autoplay game");
+        game = new Game(5, 5);
+        bot = new MoveSearch(game.getCatalogue(), game.getEngine().getRules(), 2, 4_000_000L);
+    }
+
+    /**
+     * Builds the autoplay window
+     */
+    @Override
+    public void build(){
+        super.build();
+
+        controls = new Text();
+        controls.getStyleClass().add("playerBox");
+        challengePane.getChildren().add(controls);
+        challengePane.setAlignment(controls,Pos.BOTTOM_CENTER);
+        showSpeed();
+    }
+
+    /**
+     * Initialise the scene, start the game and start the bot, adding speed controls to the keyboard controls
+     */
+    @Override
+    public void initialise(){
+        super.initialise();
+
+        var challengeKeys = gameWindow.getScene().getOnKeyPressed();
+        gameWindow.getScene().setOnKeyPressed(event -> {
+            switch (event.getCode()) {
+                case EQUALS,ADD -> setSpeed(speed + 1);
+                case MINUS,SUBTRACT -> setSpeed(speed - 1);
+            }
+            challengeKeys.handle(event);
+        });
+
+        botTimer = new AnimationTimer() {
+            /**
+             * Moves owed at the current speed but not yet played
+             */
+            private double due;
+
+            /**
+             * Time of the last frame, or -1 before the first frame
+             */
+            private long last = -1;
+
+            @Override
+            public void handle(long now) {
+                int rate = SPEEDS[speed];
+                if(last >= 0 && rate > 0){
+                    //Never owe more than a second of moves, so a stalled frame does not cause a burst
+                    due = Math.min(due + (now - last) / 1e9 * rate, rate);
+                }
+                last = now;
+
+                long frameEnd = System.nanoTime() + FRAME_BUDGET;
+                while((rate == 0 || due >= 1) && System.nanoTime() < frameEnd && !game.getEngine().isGameOver()){
+                    if(!playMove()){
+                        //Nothing fits, so the bot waits for the piece to run out of time
+                        due = 0;
+                        break;
+                    }
+                    due--;
+                }
+            }
+        };
+        botTimer.start();
+    }
+
+    /**
+     * Play the bot's move through the same game methods as the player
+     * @return true if a piece was played
+     */
+    private boolean playMove(){
+        SearchResult move = bot.search(game.getEngine());
+        if(move == null){
+            return false;
+        }
+
+        if(move.isSwap()){
+            game.swapCurrentPiece();
+        }
+        int rotations = Math.floorMod(move.getRotation() - game.getEngine().getCurrentRotation(), 4);
+        if(rotations != 0){
+            game.rotateCurrentPiece(rotations);
+        }
+
+        x = move.getX();
+        y = move.getY();
+        game.blockClicked(board.getBlock(x, y));
+        movesPlayed++;
+        return true;
+    }
+
+    /**
+     * Change the speed the bot plays at
+     * @param speed the new speed, as an index into SPEEDS
+     */
+    private void setSpeed(int speed){
+        this.speed = Math.max(0, Math.min(SPEEDS.length - 1, speed));
+        showSpeed();
+    }
+
+    /**
+     * Show the current speed and how to change it
+     */
+    private void showSpeed(){
+        int rate = SPEEDS[speed];
+        controls.setText("Autoplay: " + (rate == 0 ? "max" : rate + " moves/s") + ", + and - to change speed");
+    }
+
+    /**
+     * Autoplay games are not saved
+     */
+    @Override
+    protected void startAutosave(){
+    }
+
+    /**
+     * Stop the bot and clean up the game
+     */
+    @Override
+    public void stopGame(){
+        if(botTimer != null){
+            botTimer.stop();
+        }
+        super.stopGame();
+    }
+
+    /**
+     * When the bot runs out of lives, log how the run is going and start the next game at the same speed
+     */
+    @Override
+    public void gameOverCheck(){
+        if(game.getLives()<0){
+            gamesPlayed++;
+            Runtime runtime = Runtime.getRuntime();
+            logger.info("Autoplay game {} over with score {}: {} moves played, {} threads, {}MB heap used",
+                gamesPlayed, game.getScore(), movesPlayed, Thread.activeCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+
+            stopGame();
+            gameWindow.startAutoplay(speed);
+        }
+    }
+
+}
@@ -7,7 +7,9 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.effect.DropShadow;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -19,9 +21,15 @@ import javafx.util.Duration;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.CursorOverlay;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBoard;
-import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.component.PieceCanvas;
+import uk.ac.soton.comp1206.component.PlacementPreview;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.search.MoveSearch;
+import uk.ac.soton.comp1206.engine.search.SearchResult;
+import uk.ac.soton.comp1206.game.Autosave;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.Multimedia;
 import uk.ac.soton.comp1206.ui.GamePane;
@@ -46,11 +54,31 @@ public class ChallengeScene extends BaseScene {
      * Music player
      */
     public Multimedia multimedia;
-    private PieceBoard currentPieceBoard;
-    private PieceBoard followingPieceBoard;
+    private PieceCanvas currentPieceBoard;
+    private PieceCanvas followingPieceBoard;
 
     private Rectangle timerBar;
 
+    /**
+     * Redraws the time bar every frame from the time left on the game clock
+     */
+    private AnimationTimer timerBarAnimation;
+
+    /**
+     * Saved game to resume when the game starts, if any
+     */
+    private byte[] savedGame;
+
+    /**
+     * Saves the game while it is being played
+     */
+    private Autosave autosave;
+
+    /**
+     * Finds the move to suggest when a hint is asked for, looking three pieces ahead within a frame
+     */
+    private MoveSearch hintSearch;
+
     /**
      * Initial keyboard grid x coordinate
      */
@@ -103,6 +131,7 @@ public class ChallengeScene extends BaseScene {
         logger.info("Building " + this.getClass().getName());
 
         setupGame();
+        hintSearch = new MoveSearch(game.getCatalogue(), game.getEngine().getRules(), 3, 10_000_000L);
 
         root = new GamePane(gameWindow.getWidth(),gameWindow.getHeight());
 
@@ -116,18 +145,15 @@ public class ChallengeScene extends BaseScene {
         challengePane.getChildren().add(mainPane);
 
         //Display main grid
-        board = new GameBoard(game.getGrid(),gameWindow.getWidth()/2,gameWindow.getWidth()/2, "mainBoard");
-        mainPane.setCenter(board);
-        board.setTranslateX(-80);
-        board.setTranslateY(30);
+        var mainBoard = buildBoard();
+        mainPane.setCenter(mainBoard);
+        mainBoard.setTranslateX(-80);
+        mainBoard.setTranslateY(30);
 
         //Display secondary grid
-        currentPieceBoard = new PieceBoard(3,3,gameWindow.getWidth()/5,gameWindow.getWidth()/5, "currentPieceBoard");
-        followingPieceBoard = new PieceBoard(3,3,gameWindow.getWidth()/7,gameWindow.getWidth()/7, "followingPieceBoard");
-
-        //Handle block on game board grid being clicked
-        board.setOnBlockClick(this::blockClicked);
-        board.setOnRightClicked(this::rightClicked);
+        int pieceSize = game.getCatalogue().getShapeSize();
+        currentPieceBoard = new PieceCanvas(pieceSize,gameWindow.getWidth()/5,gameWindow.getWidth()/5, "currentPieceBoard");
+        followingPieceBoard = new PieceCanvas(pieceSize,gameWindow.getWidth()/7,gameWindow.getWidth()/7, "followingPieceBoard");
 
         //Handle block events on the current and following grids being clicked
         currentPieceBoard.setOnRightClicked(this::rightClicked);
@@ -147,10 +173,15 @@ public class ChallengeScene extends BaseScene {
             currentPieceBoard.displayPiece(current);
             currentPieceBoard.setCircle();
             followingPieceBoard.displayPiece(following);
-        });
 
-        game.setLineClearedListener(gameBlockCoordinate -> {
-            board.fadeOut(gameBlockCoordinate);
+            //Any hinted move was for the previous piece
+            getOverlay().setSelected(-1, -1);
+            followingPieceBoard.setEffect(null);
+
+            //The piece or the board under the preview has changed
+            if(getPreview().isShowing()){
+                showPreview();
+            }
         });
 
         //Time bar
@@ -162,20 +193,15 @@ public class ChallengeScene extends BaseScene {
         game.setGameLoopListener(this::animateBar);
 
         //Sets of labels for the headings
-        var title = new Text("Challenge Mode");
+        var title = new Text(getTitle());
         title.getStyleClass().add("heading");
         challengePane.getChildren().add(title);
         challengePane.setAlignment(title,Pos.TOP_CENTER);
 
         var score = new Text();
         var level = new Text();
-        var lives = new Text();
         var scoreTitle = new Text("Score");
         var levelTitle = new Text("Level");
-        var livesTitle = new Text("Lives");
-
-        highScore = new Text();
-        highScoreTitle = new Text("High score");
 
         score.textProperty().bind(game.scoreProperty().asString());
         score.getStyleClass().add("score");
@@ -187,10 +213,6 @@ public class ChallengeScene extends BaseScene {
         level.setTranslateX(300);
         level.setTranslateY(-205);
 
-        lives.textProperty().bind(game.livesProperty().asString());
-        lives.getStyleClass().add("lives");
-        lives.setTranslateY(-205);
-
         scoreTitle.getStyleClass().add("subheading");
         scoreTitle.setTranslateX(-300);
         scoreTitle.setTranslateY(-235);
@@ -199,6 +221,84 @@ public class ChallengeScene extends BaseScene {
         levelTitle.setTranslateX(300);
         levelTitle.setTranslateY(-235);
 
+        challengePane.getChildren().addAll(score,level,scoreTitle,levelTitle);
+
+        buildLives(score);
+
+        //Play game music
+        multimedia = new Multimedia();
+        multimedia.playMusic("music/game.wav");
+
+    }
+
+    /**
+     * Creates the main board and the layers over it, and handles clicks and hovers on it and lines cleared from it
+     * @return the node to show in the centre of the window
+     */
+    protected Node buildBoard() {
+        board = new GameBoard(game.getGrid(),gameWindow.getWidth()/2,gameWindow.getWidth()/2, "mainBoard");
+
+        //Handle block on game board grid being clicked
+        board.setOnBlockClick(this::blockClicked);
+        board.setOnRightClicked(this::rightClicked);
+
+        //Preview the current piece under the mouse
+        board.setOnBlockHovered(block -> {
+            if(block == null){
+                board.getPreview().hide();
+            }
+            else{
+                x = block.getX();
+                y = block.getY();
+                showPreview();
+            }
+        });
+
+        game.setLineClearedListener(cleared -> {
+            board.fadeOut(cleared);
+        });
+
+        return board;
+    }
+
+    /**
+     * Gets the layer showing where the current piece would land over the main board
+     * @return the preview layer
+     */
+    protected PlacementPreview getPreview() {
+        return board.getPreview();
+    }
+
+    /**
+     * Gets the layer showing the cursor and selection over the main board
+     * @return the overlay
+     */
+    protected CursorOverlay getOverlay() {
+        return board.getOverlay();
+    }
+
+    /**
+     * Gets the heading shown at the top of the window
+     * @return the heading
+     */
+    protected String getTitle() {
+        return "Challenge Mode";
+    }
+
+    /**
+     * Shows the lives left and the high score to beat
+     * @param score the score shown, which replaces the high score once it is beaten
+     */
+    protected void buildLives(Text score) {
+        var lives = new Text();
+        var livesTitle = new Text("Lives");
+        highScore = new Text();
+        highScoreTitle = new Text("High score");
+
+        lives.textProperty().bind(game.livesProperty().asString());
+        lives.getStyleClass().add("lives");
+        lives.setTranslateY(-205);
+
         livesTitle.getStyleClass().add("subheading");
         livesTitle.setTranslateY(-235);
 
@@ -211,18 +311,13 @@ public class ChallengeScene extends BaseScene {
         highScoreTitle.setTranslateX(260);
         highScoreTitle.setTranslateY(-160);
 
-        challengePane.getChildren().addAll(score,level,lives,scoreTitle,levelTitle,livesTitle,highScore,highScoreTitle);
+        challengePane.getChildren().addAll(lives,livesTitle,highScore,highScoreTitle);
 
         score.textProperty().addListener(observable -> {
             if(Integer.parseInt(score.getText())>Integer.parseInt(highScore.getText())){
                 highScore.setText(score.getText());
             }
         });
-
-        //Play game music
-        multimedia = new Multimedia();
-        multimedia.playMusic("music/game.wav");
-
     }
 
     /**
@@ -248,7 +343,17 @@ public class ChallengeScene extends BaseScene {
     public void setupGame() {
         logger.info("Starting a new challenge");
 
-        //Start new game
+        //Resume the saved game if there is one, otherwise start a new game
+        savedGame = Autosave.load();
+        if(savedGame != null){
+            try{
+                game = new Game(GameEngine.snapshotCols(savedGame),GameEngine.snapshotRows(savedGame),GameEngine.snapshotSeed(savedGame));
+                return;
+            } catch (RuntimeException e){
+                logger.error("Saved game could not be loaded", e);
+                savedGame = null;
+            }
+        }
         game = new Game(5, 5);
     }
 
@@ -260,58 +365,123 @@ public class ChallengeScene extends BaseScene {
         logger.info("Initialising Challenge");
         game.start();
 
+        if(savedGame != null){
+            try{
+                game.restore(savedGame);
+            } catch (RuntimeException e){
+                logger.error("Saved game could not be restored", e);
+            }
+            savedGame = null;
+        }
+
+        startAutosave();
+
         //Keyboard support
         gameWindow.getScene().setOnKeyPressed(event -> {
 
-            //Will clear any previous hover effects
-            for(int x=0;x<board.getRowCount();x++){
-                for(int y=0;y<board.getColumnCount();y++){
-                    board.getBlock(x,y).paint();
-                }
-            }
-
             switch (event.getCode()) {
                 case ESCAPE -> {
                     logger.info("Returning to menu");
+                    //Save the game as it stands, so it can be resumed next time
+                    if(autosave != null){
+                        autosave.save();
+                    }
                     stopGame();
                     gameWindow.startMenu();
                 }
                 case W,UP -> {
                     y--;
                     if(y<0){
-                        y=4;
+                        y=game.getRows()-1;
                     }
                 }
                 case A,LEFT -> {
                     x--;
                     if(x<0){
-                        x=4;
+                        x=game.getCols()-1;
                     }
                 }
                 case S,DOWN ->{
                     y++;
-                    if(y>4){
+                    if(y>=game.getRows()){
                         y=0;
                     }
                 }
                 case D,RIGHT -> {
                     x++;
-                    if(x>4){
+                    if(x>=game.getCols()){
                         x=0;
                     }
                 }
                 case Q,Z,OPEN_BRACKET -> game.rotateCurrentPiece(1);
                 case E,C,CLOSE_BRACKET -> game.rotateCurrentPiece(3);
                 case SPACE,R -> game.swapCurrentPiece();
-                case ENTER,X -> game.blockClicked(board.getBlock(x, y));
+                case ENTER,X -> game.blockClicked(x, y);
+                case H -> {
+                    //Leave the hint showing until the cursor moves
+                    hint();
+                    return;
+                }
+                case P -> {
+                    if(game.isPaused()){
+                        game.resume();
+                    }
+                    else{
+                        game.pause();
+                    }
+                }
             }
 
-            board.getBlock(x,y).hover();
+            showPreview();
 
         });
 
     }
 
+    /**
+     * Moves the keyboard cursor on the overlay and previews the current piece centred on it, tinted by whether it can
+     * be played there
+     */
+    protected void showPreview(){
+        getOverlay().setCursor(x,y);
+
+        GameEngine engine = game.getEngine();
+        if(engine.getCurrentPiece() < 0){
+            return;
+        }
+        getPreview().show(engine.getPlacementTable(),engine.getBoard(),engine.getCurrentShape(),x,y);
+    }
+
+    /**
+     * Shows the best move found by the hint search, without changing the game
+     * The piece to play is shown in the rotation to play it in where it should be played, the following piece glows if it
+     * should be swapped in first, and the keyboard cursor is moved to the block to play it on
+     */
+    public void hint(){
+        //The search looks up the last piece in the endgame table, if there is one, so it can look further ahead
+        SearchResult move = hintSearch.search(game.getEngine());
+        if(move == null){
+            logger.info("No moves available");
+            return;
+        }
+        logger.info("Hint: {}", move);
+
+        x = move.getX();
+        y = move.getY();
+        getOverlay().setCursor(x,y);
+        getOverlay().setSelected(x,y);
+        getPreview().showHint(game.getEngine().getPlacementTable(),move.getPiece() * 4 + move.getRotation(),x,y);
+        followingPieceBoard.setEffect(move.isSwap() ? new DropShadow(20, Color.GOLD) : null);
+    }
+
+    /**
+     * Start saving the game periodically, so it can be resumed if the window is closed
+     */
+    protected void startAutosave(){
+        autosave = new Autosave(game);
+        autosave.start();
+    }
+
     /**
      * Cleans up the game
      */
@@ -319,27 +489,36 @@ public class ChallengeScene extends BaseScene {
         multimedia.stopMusic();
         multimedia.playAudio("sounds/explode.wav");
         game.stopTimer();
+        if(timerBarAnimation != null){
+            timerBarAnimation.stop();
+        }
+
+        //The last save is kept, so a game left part way through can be resumed
+        if(autosave != null){
+            autosave.stop();
+        }
     }
 
     /**
      * Animates the time bar
+     * The bar is redrawn every frame from the time left before the game's deadline, so it cannot drift from the timer
      */
     public void animateBar(){
 
         gameOverCheck();
 
-        Duration duration = Duration.millis(game.getTimerDelay());
+        if(timerBarAnimation == null){
+            timerBarAnimation = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    double left = (double) game.getTimeRemaining() / game.getLoopLength(); //Fraction of time left
 
-        ScaleTransition scaleTransition = new ScaleTransition(duration,timerBar);
-
-        scaleTransition.setFromX(1.0);
-        scaleTransition.setToX(0.0);
-        scaleTransition.setInterpolator(Interpolator.LINEAR);
-
-        FillTransition fillTransition = new FillTransition(duration,timerBar,Color.GREEN,Color.RED);
-
-        scaleTransition.play();
-        fillTransition.play();
+                    timerBar.setScaleX(left);
+                    timerBar.setFill(Color.RED.interpolate(Color.GREEN,left));
+                }
+            };
+            timerBarAnimation.start();
+        }
 
     }
 
@@ -350,6 +529,11 @@ public class ChallengeScene extends BaseScene {
         if(game.getLives()<0){
             logger.info("GAME OVER");
             stopGame();
+
+            //The game has ended, so there is nothing left to resume
+            if(autosave != null){
+                Autosave.discard();
+            }
             gameWindow.startScore(game);
         }
     }
@@ -0,0 +1,180 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.BoardCanvas;
+import uk.ac.soton.comp1206.component.CursorOverlay;
+import uk.ac.soton.comp1206.component.LineClearEffects;
+import uk.ac.soton.comp1206.component.PlacementPreview;
+import uk.ac.soton.comp1206.engine.GameRules;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+/**
+ * The endless scene. Plays a game which never ends on a square board of any size up to 64x64. The board is drawn on a
+ * single canvas, so even the largest board adds only a couple of nodes to the scene.
+ */
+public class EndlessScene extends ChallengeScene {
+
+    private static final Logger logger = LogManager.getLogger(EndlessScene.class);
+
+    /**
+     * The board sizes which can be played
+     */
+    public static final int[] SIZES = {5, 8, 16, 32, 64};
+
+    /**
+     * The board size the menu starts with, as an index into SIZES
+     */
+    public static final int DEFAULT_SIZE = 2;
+
+    /**
+     * The board size being played, as an index into SIZES
+     */
+    private final int size;
+
+    /**
+     * The layer showing where the current piece would land
+     */
+    private PlacementPreview preview;
+
+    /**
+     * The layer showing the keyboard cursor over the board
+     */
+    private CursorOverlay overlay;
+
+    /**
+     * Create a new endless scene
+     * @param gameWindow the Game Window
+     * @param size the board size to play, as an index into SIZES
+     */
+    public EndlessScene(GameWindow gameWindow, int size) {
+        super(gameWindow);
+        this.size = size;
+        logger.info("Creating Endless Scene");
+    }
+
+    /**
+     * Set up an endless game on the chosen board size, never resuming a saved one
+     */
+    @Override
+    public void setupGame(){
+        logger.info("Starting a new endless game");
+
+        int cells = SIZES[size];
+        game = new Game(cells, cells, GameRules.ENDLESS);
+        x = cells / 2;
+        y = cells / 2;
+    }
+
+    /**
+     * Builds the endless window
+     */
+    @Override
+    public void build(){
+        super.build();
+
+        var controls = new Text("Page Up and Page Down to change board size");
+        controls.getStyleClass().add("playerBox");
+        challengePane.getChildren().add(controls);
+        StackPane.setAlignment(controls,Pos.BOTTOM_CENTER);
+    }
+
+    /**
+     * Creates the board on a single canvas, with the layers over it sharing the same space
+     * @return the board and its layers
+     */
+    @Override
+    protected Node buildBoard(){
+        int cells = SIZES[size];
+        double side = gameWindow.getHeight() * 0.65;
+        var canvas = new BoardCanvas(game.getGrid(), side, side, "mainBoard");
+        preview = new PlacementPreview(cells, cells, side, side);
+        var effects = new LineClearEffects(cells, cells, side, side);
+        overlay = new CursorOverlay(cells, cells, side, side);
+        var boardPane = new StackPane(canvas, effects, preview, overlay);
+        boardPane.setMaxSize(side, side);
+
+        canvas.setOnCellClicked((cellX, cellY) -> game.blockClicked(cellX, cellY));
+        canvas.setOnRightClicked(this::rightClicked);
+        canvas.setOnCellHovered((cellX, cellY) -> {
+            if(cellX < 0){
+                preview.hide();
+            }
+            else{
+                x = cellX;
+                y = cellY;
+                showPreview();
+            }
+        });
+
+        game.setLineClearedListener(effects::play);
+
+        return boardPane;
+    }
+
+    @Override
+    protected PlacementPreview getPreview(){
+        return preview;
+    }
+
+    @Override
+    protected CursorOverlay getOverlay(){
+        return overlay;
+    }
+
+    @Override
+    protected String getTitle(){
+        int cells = SIZES[size];
+        return "Endless " + cells + "x" + cells;
+    }
+
+    /**
+     * Endless games have no lives to lose and no high score to beat
+     * @param score the score shown
+     */
+    @Override
+    protected void buildLives(Text score){
+    }
+
+    /**
+     * Initialise the scene and start the game, adding board size changes to the keyboard controls
+     */
+    @Override
+    public void initialise(){
+        super.initialise();
+
+        var challengeKeys = gameWindow.getScene().getOnKeyPressed();
+        gameWindow.getScene().setOnKeyPressed(event -> {
+            switch (event.getCode()) {
+                case PAGE_UP -> changeSize(size + 1);
+                case PAGE_DOWN -> changeSize(size - 1);
+                default -> challengeKeys.handle(event);
+            }
+        });
+    }
+
+    /**
+     * Endless games are not saved
+     */
+    @Override
+    protected void startAutosave(){
+    }
+
+    /**
+     * Start a new game on a different board size
+     * @param size the new size, as an index into SIZES
+     */
+    private void changeSize(int size){
+        if(size < 0 || size >= SIZES.length){
+            return;
+        }
+        stopGame();
+        gameWindow.startEndless(size);
+    }
+
+}
@@ -24,9 +24,8 @@ import javafx.scene.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBoard;
-import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.component.PieceCanvas;
 import uk.ac.soton.comp1206.game.Game;
-import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.game.Grid;
 import uk.ac.soton.comp1206.game.Multimedia;
 import uk.ac.soton.comp1206.ui.GamePane;
@@ -86,8 +85,9 @@ public class InstructionsScene extends BaseScene {
     instructionPane.getChildren().add(mainPane);
 
     var pieces = new GridPane(); //Grid of grids of pieces
-    var game = new Game(3,3); //Grid of piece
-    PieceBoard pieceBoard;
+    int pieceSize = Game.getDefaultCatalogue().getShapeSize();
+    var game = new Game(pieceSize,pieceSize); //Grid of piece
+    PieceCanvas pieceBoard;
 
     var title = new Text("Instructions"); //Title
     title.getStyleClass().add("heading");
@@ -97,16 +97,11 @@ public class InstructionsScene extends BaseScene {
     var heading = new Text("Game Pieces"); //Subheading
     heading.getStyleClass().add("instructions");
 
-    int count=0; //Represents the game piece to be placed
-
-    for(int a=0;a<5;a++){ //Iterated 15 times to generate each piece
-      for(int b=0;b<3;b++){
-        pieceBoard = new PieceBoard(3,3,gameWindow.getWidth()/12,gameWindow.getWidth()/12, "displayPieces"); //Smaller grid containing a piece
-        pieceBoard.notClickable();
-        pieceBoard.displayPiece(game.spawnPiece(count));
-        pieces.add(pieceBoard,a,b);
-        count++;
-      }
+    for(int count=0;count<game.getCatalogue().size();count++){ //Generates each piece, three to a column
+      pieceBoard = new PieceCanvas(pieceSize,gameWindow.getWidth()/12,gameWindow.getWidth()/12, "displayPieces"); //Smaller grid containing a piece
+      pieceBoard.notClickable();
+      pieceBoard.displayPiece(game.spawnPiece(count));
+      pieces.add(pieceBoard,count/3,count%3);
     }
 
     pieces.setHgap(5);
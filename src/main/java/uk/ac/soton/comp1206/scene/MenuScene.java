@@ -88,6 +88,24 @@ public class MenuScene extends BaseScene {
         buttonStart.setGraphic(start);
         start.getStyleClass().add("button");
 
+        //Practice Button
+        var buttonPractice = new Button();
+        var practice = new Text("Practice");
+        buttonPractice.setGraphic(practice);
+        practice.getStyleClass().add("button");
+
+        //Endless Button
+        var buttonEndless = new Button();
+        var endless = new Text("Endless");
+        buttonEndless.setGraphic(endless);
+        endless.getStyleClass().add("button");
+
+        //Autoplay Button
+        var buttonAutoplay = new Button();
+        var autoplay = new Text("Autoplay");
+        buttonAutoplay.setGraphic(autoplay);
+        autoplay.getStyleClass().add("button");
+
         //Instruction Button
         var buttonInstruction = new Button();
         var instruction = new Text("How to play");
@@ -112,10 +130,13 @@ public class MenuScene extends BaseScene {
         buttonVBox.setAlignment(Pos.CENTER);
         buttonVBox.setTranslateY(80);
         VBox.setVgrow(buttonVBox,Priority.NEVER);
-        buttonVBox.getChildren().addAll(buttonStart,buttonLobby,buttonInstruction,buttonExit);
+        buttonVBox.getChildren().addAll(buttonStart,buttonPractice,buttonEndless,buttonAutoplay,buttonLobby,buttonInstruction,buttonExit);
 
         //Bind the button action to the startGame method in the menu
         buttonStart.setOnAction(this::startGame);
+        buttonPractice.setOnAction(this::startPractice);
+        buttonEndless.setOnAction(this::startEndless);
+        buttonAutoplay.setOnAction(this::startAutoplay);
         buttonLobby.setOnAction(this::openLobby);
         buttonInstruction.setOnAction(this::openInstructions);
         buttonExit.setOnAction(event -> System.exit(0));
@@ -128,6 +149,18 @@ public class MenuScene extends BaseScene {
             buttonHover(start);
             buttonBounce(buttonStart);
         });
+        buttonPractice.setOnMouseEntered(event -> {
+            buttonHover(practice);
+            buttonBounce(buttonPractice);
+        });
+        buttonEndless.setOnMouseEntered(event -> {
+            buttonHover(endless);
+            buttonBounce(buttonEndless);
+        });
+        buttonAutoplay.setOnMouseEntered(event -> {
+            buttonHover(autoplay);
+            buttonBounce(buttonAutoplay);
+        });
         buttonLobby.setOnMouseEntered(event -> {
             buttonHover(lobby);
             buttonBounce(buttonLobby);
@@ -160,6 +193,33 @@ public class MenuScene extends BaseScene {
         gameWindow.startChallenge();
     }
 
+    /**
+     * Handle when the Practice button is pressed
+     * @param event event
+     */
+    private void startPractice(ActionEvent event) {
+        multimedia.stopMusic();
+        gameWindow.startPractice();
+    }
+
+    /**
+     * Handle when the Endless button is pressed
+     * @param event event
+     */
+    private void startEndless(ActionEvent event) {
+        multimedia.stopMusic();
+        gameWindow.startEndless(EndlessScene.DEFAULT_SIZE);
+    }
+
+    /**
+     * Handle when the Autoplay button is pressed
+     * @param event event
+     */
+    private void startAutoplay(ActionEvent event) {
+        multimedia.stopMusic();
+        gameWindow.startAutoplay();
+    }
+
     /**
      * Handle when the Multiplayer button is pressed
      * @param event event
@@ -89,9 +89,7 @@ public class MultiplayerScene extends ChallengeScene{
      */
     @Override
     public void stopGame(){
-        multimedia.stopMusic();
-        multimedia.playAudio("sounds/explode.wav");
-        game.stopTimer();
+        super.stopGame();
     }
 
     /**
@@ -170,8 +168,6 @@ public class MultiplayerScene extends ChallengeScene{
         //Keyboard support
         gameWindow.getScene().setOnKeyPressed(event -> {
 
-            board.getBlock(x,y).paint();
-
             if(event.getCode() == KeyCode.T && !typing){
                 typing = true;
                 chat.setVisible(true);
@@ -196,24 +192,24 @@ public class MultiplayerScene extends ChallengeScene{
                     case W,UP -> {
                         y--;
                         if(y<0){
-                            y=4;
+                            y=game.getRows()-1;
                         }
                     }
                     case A,LEFT -> {
                         x--;
                         if(x<0){
-                            x=4;
+                            x=game.getCols()-1;
                         }
                     }
                     case S,DOWN ->{
                         y++;
-                        if(y>4){
+                        if(y>=game.getRows()){
                             y=0;
                         }
                     }
                     case D,RIGHT -> {
                         x++;
-                        if(x>4){
+                        if(x>=game.getCols()){
                             x=0;
                         }
                     }
@@ -223,7 +219,7 @@ public class MultiplayerScene extends ChallengeScene{
                     case ENTER,X -> game.blockClicked(board.getBlock(x, y));
                 }
 
-                board.getBlock(x,y).hover();
+                showPreview();
             }
 
         });
@@ -0,0 +1,79 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.geometry.Pos;
+import javafx.scene.text.Text;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.PracticeGame;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+/**
+ * The practice scene. Plays an untimed single player game where moves can be undone and redone.
+ */
+public class PracticeScene extends ChallengeScene {
+
+    private static final Logger logger = LogManager.getLogger(PracticeScene.class);
+
+    /**
+     * The practice game being played
+     */
+    private PracticeGame practiceGame;
+
+    /**
+     * Create a new practice scene
+     * @param gameWindow the Game Window
+     */
+    public PracticeScene(GameWindow gameWindow) {
+        super(gameWindow);
+    }
+
+    /**
+     * Set up the practice game object and model
+     */
+    @Override
+    public void setupGame(){
+        logger.info("Starting a new practice game");
+
+        //Start new game
+        practiceGame = new PracticeGame(5, 5);
+        game = practiceGame;
+    }
+
+    /**
+     * Builds the practice window
+     */
+    @Override
+    public void build(){
+        super.build();
+
+        var controls = new Text("Practice: U to undo, Y to redo");
+        controls.getStyleClass().add("playerBox");
+        challengePane.getChildren().add(controls);
+        challengePane.setAlignment(controls,Pos.BOTTOM_CENTER);
+    }
+
+    /**
+     * Initialise the scene and start the game, adding undo and redo to the keyboard controls
+     */
+    @Override
+    public void initialise(){
+        super.initialise();
+
+        var challengeKeys = gameWindow.getScene().getOnKeyPressed();
+        gameWindow.getScene().setOnKeyPressed(event -> {
+            switch (event.getCode()) {
+                case U -> practiceGame.undo();
+                case Y -> practiceGame.redo();
+            }
+            challengeKeys.handle(event);
+        });
+    }
+
+    /**
+     * Practice games are not saved
+     */
+    @Override
+    protected void startAutosave(){
+    }
+
+}
@@ -91,6 +91,36 @@ public class GameWindow {
         loadScene(new ChallengeScene(this));
     }
 
+    /**
+     * Display the single player practice mode
+     */
+    public void startPractice() {
+        loadScene(new PracticeScene(this));
+    }
+
+    /**
+     * Display the endless mode
+     * @param size the board size to play, as an index into EndlessScene.SIZES
+     */
+    public void startEndless(int size) {
+        loadScene(new EndlessScene(this, size));
+    }
+
+    /**
+     * Display the autoplay mode, where a bot plays the challenge
+     */
+    public void startAutoplay() {
+        startAutoplay(AutoplayScene.DEFAULT_SPEED);
+    }
+
+    /**
+     * Display the autoplay mode at the given speed
+     * @param speed the speed to play at, as an index into AutoplayScene.SPEEDS
+     */
+    public void startAutoplay(int speed) {
+        loadScene(new AutoplayScene(this, speed));
+    }
+
     /**
      * Display the lobby screen
      * @param multimedia Current music player